@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+#
+# Compares the latency of the rating queries without and with the covering indexes of schema
+# migration 3. Seeds a scratch database first, which the bot must have set up once:
+#   DB=leckerschmecker_bench scripts/benchmark_indexes.sh
+# The mariadb client has to be able to connect without further arguments, e.g. via ~/.my.cnf.
+
+set -euo pipefail
+
+DB=${DB:-leckerschmecker_bench}
+RUNS=${RUNS:-200}
+MARIADB=${MARIADB:-mariadb}
+DIR=$(dirname "$0")
+
+if [ "$("$MARIADB" -N "$DB" -e "SELECT COUNT(*) FROM ratings")" -eq 0 ]; then
+    echo "Seeding $DB ..."
+    "$MARIADB" "$DB" < "$DIR/seed_ratings.sql"
+fi
+
+USERS=$("$MARIADB" -N "$DB" -e "SELECT userID FROM users ORDER BY RAND(1) LIMIT $RUNS")
+DATES=$("$MARIADB" -N "$DB" -e "SELECT CURDATE() - INTERVAL (seq * 37 % 365) DAY FROM seq_1_to_$RUNS")
+# The heavy user of seed_ratings.sql, with 20000 ratings
+HEAVY_USER=$("$MARIADB" -N "$DB" -e "SELECT userID FROM users WHERE chatID=1000000")
+TIMES=("'08:00'" "'09:00'" "'10:00'" "'11:00'" "'12:00'")
+
+# Prints one statement per run, $1 is the statement with the placeholders USER, DATE and TIME
+statements() {
+    local i=0
+    paste <(echo "$USERS") <(echo "$DATES") | while read -r user date; do
+        time=${TIMES[i++ % ${#TIMES[@]}]}
+        echo "$1;" | sed -e "s/USER/'$user'/g" -e "s/DATE/'$date'/g" -e "s/TIME/$time/g"
+    done
+}
+
+# Runs all statements in one session and prints the average time per statement
+measure() {
+    local file
+    file=$(mktemp)
+    statements "$2" > "$file"
+    local start end
+    start=$(date +%s%N)
+    "$MARIADB" "$DB" < "$file" > /dev/null
+    end=$(date +%s%N)
+    rm "$file"
+    awk -v name="$1" -v ns=$((end - start)) -v runs="$RUNS" \
+        'BEGIN { printf "  %-32s %8.3f ms\n", name, ns / runs / 1000000 }'
+}
+
+run() {
+    measure "LOAD_RATED_MEALS_BY_DATE" "SELECT mealID FROM ratings WHERE userID=USER AND date=DATE"
+    measure "LOAD_USER_RATING_BY_DATE" "SELECT * FROM ratings WHERE userID=USER AND date=DATE"
+    measure "LOAD_AUTOMATED_QUERY_IDS" "SELECT userID FROM users WHERE automated_query=TIME"
+    measure "LOAD_RATED_MEALS_BY_DATE heavy" \
+        "SELECT mealID FROM ratings WHERE userID='$HEAVY_USER' AND date=DATE"
+}
+
+# Only the covering indexes are dropped, the index of the foreign key on meal_rating_latest stays
+echo "Without covering indexes:"
+"$MARIADB" "$DB" -e "DROP INDEX IF EXISTS ratings_userID_date_index ON ratings;
+    DROP INDEX IF EXISTS users_automated_query_index ON users;"
+run
+
+echo "With covering indexes (schema migration 3):"
+"$MARIADB" "$DB" -e "CREATE INDEX ratings_userID_date_index ON ratings (userID, date, rating);
+    CREATE INDEX users_automated_query_index ON users (automated_query);
+    ANALYZE TABLE ratings, users;"
+run
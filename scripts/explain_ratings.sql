@@ -0,0 +1,55 @@
+-- Compares the query plans and latencies of the user and alias lookups before (LIKE with the
+-- UUID bound as a string) and after (equality with the UUID bound natively). Run it against a
+-- database seeded by seed_ratings.sql:
+--   mariadb leckerschmecker_bench < scripts/explain_ratings.sql
+-- EXPLAIN shows the plan, ANALYZE FORMAT=JSON executes the statement and reports the actual
+-- rows and the time in r_total_time_ms.
+
+-- Same as the connector. With a latin1 connection, LIKE on the UUID column matches no rows
+SET NAMES utf8mb4;
+
+SET @user = (SELECT userID FROM users ORDER BY chatID LIMIT 1);
+SET @user_string = CAST(@user AS CHAR);
+SET @date = CURDATE();
+SET @alias = 'seed_meal_42';
+SET @short_alias = 'seed_short_42';
+
+-- LOAD_CHATID_BY_USERID
+EXPLAIN SELECT chatID FROM users WHERE userID LIKE @user_string;
+EXPLAIN SELECT chatID FROM users WHERE userID=@user;
+
+-- LOAD_NUMBER_OF_VOTES
+EXPLAIN SELECT COUNT(*) AS amount FROM ratings WHERE userID LIKE @user_string;
+EXPLAIN SELECT COUNT(*) AS amount FROM ratings WHERE userID=@user;
+ANALYZE FORMAT=JSON SELECT COUNT(*) AS amount FROM ratings WHERE userID LIKE @user_string;
+ANALYZE FORMAT=JSON SELECT COUNT(*) AS amount FROM ratings WHERE userID=@user;
+
+-- LOAD_USER_RATING_BY_DATE, DELETE_RATING uses the same condition
+EXPLAIN SELECT * FROM ratings WHERE userID LIKE @user_string AND date=@date;
+EXPLAIN SELECT * FROM ratings WHERE userID=@user AND date=@date;
+ANALYZE FORMAT=JSON SELECT * FROM ratings WHERE userID LIKE @user_string AND date=@date;
+ANALYZE FORMAT=JSON SELECT * FROM ratings WHERE userID=@user AND date=@date;
+
+-- LOAD_MEAL_BY_ALIAS, "_" matches any character with LIKE
+EXPLAIN SELECT mealID FROM meal_name_alias WHERE alias LIKE @alias;
+EXPLAIN SELECT mealID FROM meal_name_alias WHERE alias=@alias;
+SELECT COUNT(*) AS like_matches FROM meal_name_alias WHERE alias LIKE 'seed_meal_4_';
+SELECT COUNT(*) AS equal_matches FROM meal_name_alias WHERE alias='seed_meal_4_';
+
+-- LOAD_MEALS_BY_SHORT_ALIAS
+EXPLAIN SELECT mealID FROM meal_shortname_alias WHERE shortAlias LIKE @short_alias;
+EXPLAIN SELECT mealID FROM meal_shortname_alias WHERE shortAlias=@short_alias;
+
+-- LOAD_RATINGS_BY_SHORT_ALIAS, loads the similar rating index of a user
+EXPLAIN SELECT s.shortAlias, l.mealID, l.rating
+FROM meal_rating_latest l INNER JOIN meal_shortname_alias s ON s.mealID=l.mealID
+WHERE l.userID LIKE @user_string;
+EXPLAIN SELECT s.shortAlias, l.mealID, l.rating
+FROM meal_rating_latest l INNER JOIN meal_shortname_alias s ON s.mealID=l.mealID
+WHERE l.userID=@user;
+ANALYZE FORMAT=JSON SELECT s.shortAlias, l.mealID, l.rating
+FROM meal_rating_latest l INNER JOIN meal_shortname_alias s ON s.mealID=l.mealID
+WHERE l.userID LIKE @user_string;
+ANALYZE FORMAT=JSON SELECT s.shortAlias, l.mealID, l.rating
+FROM meal_rating_latest l INNER JOIN meal_shortname_alias s ON s.mealID=l.mealID
+WHERE l.userID=@user;
@@ -0,0 +1,63 @@
+-- Seeds a scratch database with synthetic users, meals and 1M ratings, plus one heavy user, to
+-- compare query plans and latencies, e.g. with explain_ratings.sql. Run it against an EMPTY
+-- database which the bot has set up once, it does not clean up after itself:
+--   mariadb leckerschmecker_bench < scripts/seed_ratings.sql
+-- Requires MariaDB 10.7 or newer (UUID type and the sequence engine).
+
+SET @users = 20000;
+SET @meals = 2000;
+SET @similar_meals = 300; -- number of different short aliases
+
+INSERT INTO users (userID, chatID)
+SELECT UUID(), seq FROM seq_1_to_20000;
+
+-- Every 20th user subscribes to an automated query
+UPDATE users SET automated_query=ELT(1 + chatID DIV 20 % 5, '08:00', '09:00', '10:00', '11:00', '12:00')
+WHERE chatID % 20 = 0;
+
+INSERT INTO meal_name_alias (alias)
+SELECT CONCAT('seed_meal_', seq) FROM seq_1_to_2000;
+
+INSERT INTO meal_shortname_alias (mealID, shortAlias)
+SELECT mealID, CONCAT('seed_short_', mealID % @similar_meals)
+FROM meal_name_alias WHERE alias LIKE 'seed\_meal\_%';
+
+CREATE TEMPORARY TABLE seed_users (n INT PRIMARY KEY, userID UUID NOT NULL)
+SELECT ROW_NUMBER() OVER (ORDER BY chatID) AS n, userID FROM users;
+
+CREATE TEMPORARY TABLE seed_meals (n INT PRIMARY KEY, mealID INT NOT NULL)
+SELECT ROW_NUMBER() OVER (ORDER BY mealID) AS n, mealID
+FROM meal_name_alias WHERE alias LIKE 'seed\_meal\_%';
+
+-- (user, date) repeats only every 1460000 rows, so all rows are unique
+INSERT INTO ratings (userID, mealID, date, rating)
+SELECT u.userID, m.mealID, CURDATE() - INTERVAL (s.seq % 365) DAY, 1 + s.seq % 5
+FROM seq_1_to_1000000 s
+INNER JOIN seed_users u ON u.n = 1 + s.seq % @users
+INNER JOIN seed_meals m ON m.n = 1 + (s.seq * 7919) % @meals;
+
+-- One heavy user, who rated a meal on most days of ten years
+INSERT INTO users (userID, chatID) VALUES (UUID(), 1000000);
+
+INSERT INTO ratings (userID, mealID, date, rating)
+SELECT (SELECT userID FROM users WHERE chatID=1000000), m.mealID,
+    CURDATE() - INTERVAL (s.seq % 3650) DAY, 1 + s.seq % 5
+FROM seq_1_to_20000 s
+INNER JOIN seed_meals m ON m.n = 1 + s.seq % @meals;
+
+-- Same as DatabaseManager.backfillRatingSummary()
+DELETE FROM meal_rating_summary;
+DELETE FROM meal_rating_latest;
+
+INSERT INTO meal_rating_latest
+SELECT r.userID, r.mealID, r.date, r.rating FROM (ratings r INNER JOIN (
+    SELECT userID, mealID, MAX(date) AS MaxDate
+    FROM ratings
+    GROUP BY userID, mealID
+) rmax ON r.userID=rmax.userID AND r.mealID=rmax.mealID AND r.date=MaxDate);
+
+INSERT INTO meal_rating_summary
+SELECT mealID, SUM(rating), COUNT(*) FROM meal_rating_latest GROUP BY mealID;
+
+ANALYZE TABLE users, meal_name_alias, meal_shortname_alias, ratings, meal_rating_latest,
+    meal_rating_summary;
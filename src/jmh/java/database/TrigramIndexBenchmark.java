@@ -0,0 +1,115 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures lookups in and additions to the trigram index over a synthetic dictionary of meal
+ * aliases. Queries are known aliases with a single typo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrigramIndexBenchmark {
+
+    // Real meal names consist of a few words out of a vocabulary of some thousand words
+    private static final String[] SYLLABLES = {"ka", "tof", "fel", "schnit", "zel", "brat",
+            "wurst", "sos", "se", "reis", "nu", "deln", "ge", "mü", "rahm", "kä", "spätz", "le",
+            "hähn", "chen", "rind", "pu", "ten", "lachs", "fi", "let", "cur", "ry", "to", "ma",
+            "kraut", "sa", "lat", "pil", "ze", "bro", "ko", "li", "erb", "sen", "möh", "ren",
+            "pü", "ree", "gy", "ros", "chi", "lasag", "ne", "pes", "knö", "del", "sup", "pe"};
+    private static final int VOCABULARY = 3000;
+
+    @Param({"100000"})
+    public int aliases;
+
+    private TrigramIndex index;
+    private List<String> queries;
+    private int nextQuery;
+    private int nextID;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < VOCABULARY) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 2 + random.nextInt(3); i > 0; i--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words.add(word.toString());
+        }
+        List<String> vocabulary = new ArrayList<>(words);
+
+        Set<String> dictionary = new LinkedHashSet<>();
+        while (dictionary.size() < aliases) {
+            StringBuilder alias = new StringBuilder();
+            for (int i = 2 + random.nextInt(3); i > 0; i--) {
+                if (alias.length() > 0) {
+                    alias.append('_');
+                }
+                alias.append(vocabulary.get(random.nextInt(vocabulary.size())));
+            }
+            dictionary.add(alias.toString());
+        }
+
+        index = new TrigramIndex();
+        for (String alias : dictionary) {
+            index.add(alias, nextID++);
+        }
+
+        List<String> all = new ArrayList<>(dictionary);
+        queries = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            char[] query = all.get(random.nextInt(all.size())).toCharArray();
+            query[random.nextInt(query.length)] = (char) ('a' + random.nextInt(26));
+            queries.add(new String(query));
+        }
+    }
+
+    @Benchmark
+    public Object findSimilar() {
+        String query = queries.get(nextQuery++ % queries.size());
+        return index.findSimilar(query, 3, 0.6f);
+    }
+
+    @Benchmark
+    public void add() {
+        index.add("neues_gericht_" + nextID, nextID++);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the search index of a canteen week and searching all canteens, using the
+ * recorded pages of the directory given by the system property "leckerschmecker.pages".
+ * Canteens without recorded pages are left out. Queries are parts of words of the offered meals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MealSearchBenchmark {
+
+    private final List<Map<LocalDate, DailyOffer>> weeks = new ArrayList<>();
+    private final List<MealSearchIndex> indices = new ArrayList<>();
+    private final List<String> queries = new ArrayList<>();
+    private int nextQuery;
+
+    @Setup
+    public void setup() throws IOException {
+        String dir = System.getProperty("leckerschmecker.pages", "recordings");
+        for (Canteen canteen : Canteen.TYPES) {
+            if (!Files.isRegularFile(RecordedPages.getPath(dir, canteen.getPageName(false)))
+                    || !Files.isRegularFile(RecordedPages.getPath(dir, canteen.getPageName(true)))) {
+                continue;
+            }
+
+            Elements daysDE = RecordedPages.load(dir, canteen.getPageName(false)).parse()
+                    .getElementsByClass("preventBreak");
+            Elements daysEN = RecordedPages.load(dir, canteen.getPageName(true)).parse()
+                    .getElementsByClass("preventBreak");
+            LocalDate firstDay = DailyOffer.parseDate(daysDE.get(0));
+
+            Map<LocalDate, DailyOffer> week = new HashMap<>();
+            for (int i = 0; i < daysDE.size(); i++) {
+                DailyOffer offer = DailyOffer.parseOffer(daysDE.get(i), daysEN.get(i), firstDay,
+                        daysDE.size());
+                if (offer != null) {
+                    week.put(offer.getDate(), offer);
+                }
+            }
+            weeks.add(week);
+            indices.add(MealSearchIndex.build(week));
+        }
+        if (weeks.isEmpty()) {
+            throw new IllegalStateException("No recorded pages in " + dir
+                    + ", set offers.record_dir in the config and run the bot once");
+        }
+
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (Map<LocalDate, DailyOffer> week : weeks) {
+            for (DailyOffer offer : week.values()) {
+                for (MainMeal meal : offer.getMainMeals()) {
+                    words.addAll(MealSearchIndex.split(meal.getDisplayName(Locale.GERMANY)));
+                }
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            int start = random.nextInt(Math.max(1, word.length() - 3));
+            int end = Math.min(word.length(), start + 4 + random.nextInt(6));
+            queries.add(word.substring(start, end));
+        }
+    }
+
+    @Benchmark
+    public int search() {
+        String query = queries.get(nextQuery++ % queries.size());
+        int hits = 0;
+        for (MealSearchIndex index : indices) {
+            hits += index.search(query).size();
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public Object buildWeek() {
+        return MealSearchIndex.build(weeks.get(nextQuery++ % weeks.size()));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the meal name normalizer with the original chain of replacements, on all meal names
+ * of the recorded pages (see {@link ParseBenchmark}) and a few known edge cases. That both
+ * produce the same names is checked by NameNormalizerTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizerBenchmark {
+
+    private static final List<String> EDGE_CASES = List.of(
+            "Hähnchenbrust mit Reis und Salat",
+            "Gemüse-Lasagne | Tomatensoße",
+            "  Currywurst  mit  Pommes frites  ",
+            "Eintopf mit mit Brot",
+            "Pasta mit und Käse",
+            "Salat oder mit Dressing",
+            "STRAßENKÜCHE: Bratwurst/Brötchen & Senf\\Ketchup.",
+            "\tSuppe mit Einlage\n",
+            "mit Reis",
+            "Reis mit ",
+            "Ïl Éclair ÀÖØÞ",
+            "Çiğ köfte mit İçli",
+            "Schnitzel “Wiener Art” mit Pommes");
+
+    private final List<String> names = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        names.addAll(EDGE_CASES);
+        names.addAll(recordedNames(Path.of(System.getProperty("leckerschmecker.pages",
+                "recordings"))));
+    }
+
+    @Benchmark
+    public void normalize(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(NameNormalizer.normalize(name));
+        }
+    }
+
+    @Benchmark
+    public void legacyNormalize(Blackhole bh) {
+        for (String name : names) {
+            bh.consume(NameNormalizer.legacyNormalize(name));
+        }
+    }
+
+    private static List<String> recordedNames(Path dir) throws IOException {
+        List<String> res = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return res;
+        }
+
+        List<Path> pages;
+        try (Stream<Path> files = Files.list(dir)) {
+            pages = files.filter(p -> p.toString().endsWith("-w.html")).toList();
+        }
+        for (Path page : pages) {
+            OfferPage offerPage = OfferPage.of(page.toUri().toString(), Files.readAllBytes(page));
+            for (Element meal : offerPage.parse().getElementsByClass("expand-nutr")) {
+                String name = meal.ownText();
+                res.add(name);
+                // parseMeal and getShortAlias normalize parts of the name as well
+                for (String part : name.split("ODER")) {
+                    res.add(part.trim());
+                }
+                if (name.indexOf('|') >= 0) {
+                    res.add(name.substring(0, name.indexOf('|')));
+                }
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures each stage of the offer parser against the recorded pages of one canteen week. The
+ * pages are read from the directory given by the system property "leckerschmecker.pages" and can
+ * be recorded by setting "offers.record_dir" in the config. One operation always covers the whole
+ * week of a canteen, so the stages can be compared with each other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"academica", "ahornstrasse", "vita", "templergraben", "bayernallee",
+            "eupenerstrasse", "kmac", "juelich"})
+    public String canteen;
+
+    private OfferPage pageDE;
+    private OfferPage pageEN;
+
+    private Elements daysDE;
+    private Elements daysEN;
+    // The offers are always parsed relative to the first day of the recorded week
+    private LocalDate firstDay;
+
+    private final List<LocalDate> mealDates = new ArrayList<>();
+    private final List<Element> mealsDE = new ArrayList<>();
+    private final List<Element> mealsEN = new ArrayList<>();
+    private final List<Element> extrasDE = new ArrayList<>();
+    private final List<Element> extrasEN = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        String dir = System.getProperty("leckerschmecker.pages", "recordings");
+        Canteen c = Canteen.getByURLName(canteen).orElseThrow(
+                () -> new IllegalArgumentException("Unknown canteen '" + canteen + "'"));
+
+        for (String pageName : List.of(c.getPageName(false), c.getPageName(true))) {
+            if (!Files.isRegularFile(RecordedPages.getPath(dir, pageName))) {
+                throw new IllegalStateException("No recorded page "
+                        + RecordedPages.getPath(dir, pageName)
+                        + ", set offers.record_dir in the config and run the bot once");
+            }
+        }
+        pageDE = RecordedPages.load(dir, c.getPageName(false));
+        pageEN = RecordedPages.load(dir, c.getPageName(true));
+
+        daysDE = pageDE.parse().getElementsByClass("preventBreak");
+        daysEN = pageEN.parse().getElementsByClass("preventBreak");
+        firstDay = DailyOffer.parseDate(daysDE.get(0));
+
+        for (int i = 0; i < daysDE.size(); i++) {
+            LocalDate date = DailyOffer.parseDate(daysDE.get(i));
+
+            Elements dayMealsDE = daysDE.get(i).getElementsByClass("menues").get(0)
+                    .getElementsByClass("menue-wrapper");
+            Elements dayMealsEN = daysEN.get(i).getElementsByClass("menues").get(0)
+                    .getElementsByClass("menue-wrapper");
+            for (int j = 0; j < dayMealsDE.size(); j++) {
+                mealDates.add(date);
+                mealsDE.add(dayMealsDE.get(j));
+                mealsEN.add(dayMealsEN.get(j));
+            }
+
+            extrasDE.addAll(daysDE.get(i).getElementsByClass("extras").get(0)
+                    .getElementsByClass("menue-wrapper"));
+            extrasEN.addAll(daysEN.get(i).getElementsByClass("extras").get(0)
+                    .getElementsByClass("menue-wrapper"));
+        }
+    }
+
+    @Benchmark
+    public void parseDocument(Blackhole bh) throws IOException {
+        Document docDE = pageDE.parse();
+        Document docEN = pageEN.parse();
+        bh.consume(docDE);
+        bh.consume(docEN);
+    }
+
+    @Benchmark
+    public void parseOffer(Blackhole bh) {
+        for (int i = 0; i < daysDE.size(); i++) {
+            bh.consume(DailyOffer.parseOffer(daysDE.get(i), daysEN.get(i), firstDay,
+                    daysDE.size()));
+        }
+    }
+
+    @Benchmark
+    public void parseMeal(Blackhole bh) {
+        for (int i = 0; i < mealsDE.size(); i++) {
+            bh.consume(MainMeal.parseMeal(mealDates.get(i), mealsDE.get(i), mealsEN.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void parseSideMeals(Blackhole bh) {
+        for (int i = 0; i < extrasDE.size(); i++) {
+            bh.consume(SideMeal.parseSideMeals(extrasDE.get(i), extrasEN.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void legacyParseSideMeals(Blackhole bh) {
+        for (int i = 0; i < extrasDE.size(); i++) {
+            bh.consume(legacyDisplayNames(extrasDE.get(i), "oder"));
+            bh.consume(legacyDisplayNames(extrasEN.get(i), "or"));
+        }
+    }
+
+    @Benchmark
+    public void searchNutrientsFor(Blackhole bh) {
+        for (Element meal : mealsDE) {
+            bh.consume(Nutrition.searchNutrientsFor(meal));
+        }
+    }
+
+    private static List<String> legacyDisplayNames(Element extra, String separator) {
+        String html = extra.getElementsByClass("menue-item extra menue-desc").get(0).html();
+        return Arrays.stream(html.replace("<span class=\"menue-nutr\">+</span>", "")
+                .replace("<br>", "")
+                .replaceAll("<sup>.*?</sup>", "")
+                .replace("|", "")
+                .split("<span class=\"seperator\">" + separator + "</span>"))
+                .map(String::trim).toList();
+    }
+}
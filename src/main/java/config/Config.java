@@ -85,6 +85,54 @@ public class Config {
         return getInstance()._getMaxVotesPerDay();
     }
 
+    public static int getFetchThreads() {
+        return getInstance()._getFetchThreads();
+    }
+
+    public static int getFetchTimeout() {
+        return getInstance()._getFetchTimeout();
+    }
+
+    public static String getRecordDir() {
+        return getInstance()._getRecordDir();
+    }
+
+    public static int getConnectTimeout() {
+        return getInstance()._getConnectTimeout();
+    }
+
+    public static String getOfferSource() {
+        return getInstance()._getOfferSource();
+    }
+
+    public static String getOfferBaseUrl() {
+        return getInstance()._getOfferBaseUrl();
+    }
+
+    public static String getOfferDir() {
+        return getInstance()._getOfferDir();
+    }
+
+    public static String getSnapshotFile() {
+        return getInstance()._getSnapshotFile();
+    }
+
+    public static int getRatingCacheSize() {
+        return getInstance()._getRatingCacheSize();
+    }
+
+    public static int getRatingCacheTtl() {
+        return getInstance()._getRatingCacheTtl();
+    }
+
+    public static int getSimilarRatingIndexSize() {
+        return getInstance()._getSimilarRatingIndexSize();
+    }
+
+    public static int getSimilarRatingIndexUsers() {
+        return getInstance()._getSimilarRatingIndexUsers();
+    }
+
     // ///////////////////////////////////////////////////////////////////////////////////////
 
     // protected implementations /////////////////////////////////////////////////////////////
@@ -175,6 +223,55 @@ public class Config {
         return Integer.parseInt(properties.getProperty("botaction.rate_meal.max_votes_per_day", "2"));
     }
 
+    protected int _getFetchThreads() {
+        return Integer.parseInt(properties.getProperty("offers.fetch.threads", "8"));
+    }
+
+    protected int _getFetchTimeout() {
+        return Integer.parseInt(properties.getProperty("offers.fetch.timeout_ms", "10000"));
+    }
+
+    protected String _getRecordDir() {
+        return properties.getProperty("offers.record_dir");
+    }
+
+    protected int _getConnectTimeout() {
+        return Integer.parseInt(properties.getProperty("offers.fetch.connect_timeout_ms", "5000"));
+    }
+
+    protected String _getOfferSource() {
+        return properties.getProperty("offers.source", "http");
+    }
+
+    protected String _getOfferBaseUrl() {
+        return properties.getProperty("offers.source.base_url",
+                "https://www.studierendenwerk-aachen.de/speiseplaene/");
+    }
+
+    protected String _getOfferDir() {
+        return properties.getProperty("offers.source.dir", "recordings");
+    }
+
+    protected String _getSnapshotFile() {
+        return properties.getProperty("offers.snapshot_file", "data/offers.bin");
+    }
+
+    protected int _getRatingCacheSize() {
+        return Integer.parseInt(properties.getProperty("ratings.cache.size", "10000"));
+    }
+
+    protected int _getRatingCacheTtl() {
+        return Integer.parseInt(properties.getProperty("ratings.cache.ttl_seconds", "600"));
+    }
+
+    protected int _getSimilarRatingIndexSize() {
+        return Integer.parseInt(properties.getProperty("ratings.similar_index.max_size", "2000"));
+    }
+
+    protected int _getSimilarRatingIndexUsers() {
+        return Integer.parseInt(properties.getProperty("ratings.similar_index.max_users", "500"));
+    }
+
     // ///////////////////////////////////////////////////////////////////////////////////////
 
 }
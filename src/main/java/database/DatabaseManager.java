@@ -30,12 +30,17 @@ import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import localization.ResourceManager;
 import meal.Canteen;
@@ -44,8 +49,10 @@ import meal.LeckerSchmecker;
 import meal.MainMeal;
 import org.apache.commons.dbcp2.BasicDataSource;
 import rating.RatingInfo;
+import rating.SimilarRatingIndex;
 import telegram.ChatContext;
 import telegram.LeckerSchmeckerBot;
+import util.Tuple;
 
 public class DatabaseManager {
 
@@ -54,12 +61,20 @@ public class DatabaseManager {
     private BasicDataSource dataSource;
     private final TimeBasedGenerator generator = Generators.timeBasedGenerator(
             new EthernetAddress("00:00:00:00:00:00"));
+    private final MealIdCache mealIdCache = new MealIdCache();
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final RatingCache ratingCache = new RatingCache(Config.getRatingCacheSize(),
+            Config.getSimilarRatingIndexUsers(), Config.getRatingCacheTtl(), TimeUnit.SECONDS);
 
     // STATEMENTS
     private String LOAD_USER, LOAD_USER_CHAT_IDS, ADD_USER, SET_CANTEEN, SET_DIET_TYPE, SET_LOCALE, SET_COMPACT_LAYOUT, SET_AUTOMATED_QUERY, LOAD_MEAL_BY_ALIAS, LOAD_MEALS_BY_SHORT_ALIAS,
             ADD_NEW_MEAL_ALIAS, ADD_NEW_MEAL_SHORT_ALIAS, LOAD_MEALNAME_BY_ID, ADD_MEAL_ALIAS, LOAD_NUMBER_OF_VOTES,
             RATE_MEAL, DELETE_RATING, LOAD_USER_RATING_BY_DATE, LOAD_GLOBAL_RATING, LOAD_USER_RATING, LOAD_SIMILAR_RATING,
-            LOAD_AUTOMATED_QUERY_IDS, LOAD_CHATID_BY_USERID;
+            LOAD_AUTOMATED_QUERY_IDS, LOAD_CHATID_BY_USERID, LOAD_ALL_MEAL_ALIASES, LOAD_ALL_SHORT_ALIASES,
+            LOAD_MEALS_BY_ALIASES, LOAD_MEALS_BY_SHORT_ALIASES, LOAD_LATEST_RATING, SET_LATEST_RATING,
+            DELETE_LATEST_RATING, UPDATE_RATING_SUMMARY, LOAD_RATED_MEALS_BY_DATE, LOAD_PREVIOUS_RATING,
+            COUNT_RATING_SUMMARIES, BACKFILL_LATEST_RATINGS, BACKFILL_RATING_SUMMARY, LOAD_GLOBAL_RATINGS,
+            LOAD_USER_RATINGS, LOAD_SIMILAR_RATINGS, LOAD_RATINGS_BY_SHORT_ALIAS;
     /////////////
 
 
@@ -85,6 +100,31 @@ public class DatabaseManager {
         getInstance()._setupTables();
     }
 
+    public static void loadMealAliases() {
+        getInstance()._loadMealAliases();
+    }
+
+    public static MealIdCache getMealIdCache() {
+        return getInstance().mealIdCache;
+    }
+
+    public static TrigramIndex getTrigramIndex() {
+        return getInstance().trigramIndex;
+    }
+
+    public static RatingCache getRatingCache() {
+        return getInstance().ratingCache;
+    }
+
+    /**
+     * Returns up to k meals with an alias similar to the given name and their similarity, the
+     * most similar meals first.
+     */
+    public static List<Tuple<Integer, Float>> findSimilarMeals(String name, int k,
+            float minSimilarity) {
+        return getInstance().trigramIndex.findSimilar(name, k, minSimilarity);
+    }
+
     public static ChatContext loadUser(LeckerSchmeckerBot bot, long chatID) {
         return getInstance()._loadUser(bot, chatID);
     }
@@ -130,10 +170,22 @@ public class DatabaseManager {
         return getInstance()._loadMealIDsByShortAlias(meal);
     }
 
+    public static Map<String, Integer> loadMealIDsByNames(Set<String> names) {
+        return getInstance()._loadMealIDsByNames(names);
+    }
+
+    public static Map<String, Set<Integer>> loadMealIDsByShortAliases(Set<String> shortAliases) {
+        return getInstance()._loadMealIDsByShortAliases(shortAliases);
+    }
+
     public static int addMeal(MainMeal meal) {
         return getInstance()._addMeal(meal);
     }
 
+    public static Map<String, Integer> addMeals(Collection<MainMeal> meals) {
+        return getInstance()._addMeals(meals);
+    }
+
     public static List<String> getMealAliases(int mealID) {
         return getInstance()._getMealAliases(mealID);
     }
@@ -154,6 +206,13 @@ public class DatabaseManager {
         return getInstance()._numberOfRatingsByDate(context, date);
     }
 
+    /**
+     * Fills the rating summary from the complete rating history, if it is still empty.
+     */
+    public static void backfillRatingSummary() {
+        getInstance()._backfillRatingSummary();
+    }
+
     public static RatingInfo getGlobalRating(MainMeal meal) {
         return getInstance()._getGlobalRating(meal);
     }
@@ -162,6 +221,15 @@ public class DatabaseManager {
         return getInstance()._getUserRating(context, meal);
     }
 
+    /**
+     * Returns the global and the user rating of each of the given meals, using a fixed number
+     * of queries. Ratings which do not exist are null.
+     */
+    public static Map<MainMeal, Tuple<RatingInfo, RatingInfo>> getRatings(ChatContext context,
+            Collection<MainMeal> meals) {
+        return getInstance()._getRatings(context, meals);
+    }
+
     public static List<UUID> getAutomatedQueryIds(LocalTime time) {
         return getInstance()._getAutomatedQueryIds(time);
     }
@@ -200,77 +268,9 @@ public class DatabaseManager {
     }
 
     protected void _setupTables() {
-        try (Connection connection = getConnection();
-                Statement stmt = connection.createStatement()) {
-
-            // Users
-            stmt.addBatch("create table if not exists users\n" +
-                    "(\n" +
-                    "    userID          UUID                                                                                                                        not null,\n"
-                    +
-                    "    chatID          BIGINT                                                                                                                      not null,\n"
-                    +
-                    "    default_canteen ENUM ('academica', 'ahornstrasse', 'vita', 'templergraben', 'bayernallee', 'eupenerstrasse', 'kmac', 'juelich', 'suedpark') null,\n"
-                    +
-                    "    default_diet_type ENUM ('vegan', 'vegetarian', 'nopork', 'nofish', 'all') default 'all' not null,\n"
-                    +
-                    "    language        ENUM ('en-GB', 'de-DE', 'es-ES', 'zh-CN') default 'en-GB' not null,\n"
-                    +
-                    "    compact_layout  TINYINT                                   default 0 not null,\n"
-                    +
-                    "    automated_query ENUM ('08:00', '09:00', '10:00', '11:00', '12:00') null,\n"
-                    +
-                    "    constraint users_pk\n" +
-                    "        primary key (userID)\n" +
-                    ");\n");
-
-            stmt.addBatch("create unique index if not exists users_chatID_index\n" +
-                    "    on users (chatID desc);");
-
-            // Meals
-            stmt.addBatch("create table if not exists meal_name_alias\n" +
-                    "(\n" +
-                    "    mealID int auto_increment,\n" +
-                    "    alias  VARCHAR(200) not null,\n" +
-                    "    constraint meal_name_alias_pk\n" +
-                    "        primary key (mealID, alias)\n" +
-                    ");");
-
-            stmt.addBatch("create unique index if not exists meal_name_alias_alias_uindex\n" +
-                    "    on meal_name_alias (alias);");
-
-            stmt.addBatch("create table if not exists meal_shortname_alias\n" +
-                    "(\n" +
-                    "    mealID     int          null,\n" +
-                    "    shortAlias VARCHAR(200) not null,\n" +
-                    "    constraint meal_shortname_alias_pk\n" +
-                    "        primary key (mealID, shortAlias),\n" +
-                    "    constraint meal_shortname_alias_meal_name_alias_mealID_fk\n" +
-                    "        foreign key (mealID) references meal_name_alias (mealID)\n" +
-                    ");");
-
-            stmt.addBatch("create index if not exists meal_shortname_alias_shortAlias_index\n" +
-                    "    on meal_shortname_alias (shortAlias);");
-
-            // Rating
-            stmt.addBatch("create table if not exists ratings\n" +
-                    "(\n" +
-                    "    userID UUID    not null,\n" +
-                    "    mealID int     not null,\n" +
-                    "    date   DATE    not null,\n" +
-                    "    rating TINYINT not null,\n" +
-                    "    constraint ratings_pk\n" +
-                    "        primary key (userID, mealID, date),\n" +
-                    "    constraint ratings_meal_name_alias_mealID_fk\n" +
-                    "        foreign key (mealID) references meal_name_alias (mealID),\n" +
-                    "    constraint ratings_users_userID_fk\n" +
-                    "        foreign key (userID) references users (userID)\n" +
-                    ");\n");
-
-            stmt.addBatch("create index if not exists ratings_mealID_index\n" +
-                    "    on leckerschmecker.ratings (mealID desc);");
-
-            stmt.executeBatch();
+        try (Connection connection = getConnection()) {
+            int version = SchemaMigrations.migrate(connection);
+            LeckerSchmecker.getLogger().info("Database schema is at version " + version);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -280,41 +280,83 @@ public class DatabaseManager {
         LOAD_USER = "SELECT * FROM users WHERE chatID=?";
         ADD_USER = "INSERT INTO users VALUES (?, ?, ?, ?, ?, ?, ?)";
         LOAD_USER_CHAT_IDS = "SELECT chatID FROM users";
-        LOAD_NUMBER_OF_VOTES = "SELECT COUNT(*) AS amount FROM ratings WHERE userID LIKE ?";
-        SET_CANTEEN = "UPDATE users SET default_canteen=? WHERE userID LIKE ?";
-        SET_DIET_TYPE = "UPDATE users SET default_diet_type=? WHERE userID LIKE ?";
-        SET_LOCALE = "UPDATE users SET language=? WHERE userID LIKE ?";
-        SET_COMPACT_LAYOUT = "UPDATE users SET compact_layout=? WHERE userID LIKE ?";
-        SET_AUTOMATED_QUERY ="UPDATE users SET automated_query=? WHERE userID LIKE ?";
-        LOAD_MEAL_BY_ALIAS = "SELECT mealID FROM meal_name_alias WHERE alias LIKE ?";
-        LOAD_MEALS_BY_SHORT_ALIAS = "SELECT mealID FROM meal_shortname_alias WHERE shortAlias LIKE ?";
+        LOAD_NUMBER_OF_VOTES = "SELECT COUNT(*) AS amount FROM ratings WHERE userID=?";
+        SET_CANTEEN = "UPDATE users SET default_canteen=? WHERE userID=?";
+        SET_DIET_TYPE = "UPDATE users SET default_diet_type=? WHERE userID=?";
+        SET_LOCALE = "UPDATE users SET language=? WHERE userID=?";
+        SET_COMPACT_LAYOUT = "UPDATE users SET compact_layout=? WHERE userID=?";
+        SET_AUTOMATED_QUERY ="UPDATE users SET automated_query=? WHERE userID=?";
+        LOAD_MEAL_BY_ALIAS = "SELECT mealID FROM meal_name_alias WHERE alias=?";
+        LOAD_MEALS_BY_SHORT_ALIAS = "SELECT mealID FROM meal_shortname_alias WHERE shortAlias=?";
+        LOAD_MEALS_BY_ALIASES = "SELECT mealID, alias FROM meal_name_alias WHERE alias IN (%s)";
+        LOAD_MEALS_BY_SHORT_ALIASES = "SELECT mealID, shortAlias FROM meal_shortname_alias WHERE shortAlias IN (%s)";
         ADD_NEW_MEAL_ALIAS = "INSERT INTO meal_name_alias (alias) VALUES (?)";
         ADD_NEW_MEAL_SHORT_ALIAS = "INSERT INTO meal_shortname_alias VALUES (?,?)";
         LOAD_MEALNAME_BY_ID = "SELECT alias FROM meal_name_alias WHERE mealID=?";
         ADD_MEAL_ALIAS = "INSERT INTO meal_name_alias VALUES (?, ?)";
         RATE_MEAL = "INSERT INTO ratings VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE rating=?";
-        DELETE_RATING = "DELETE FROM ratings WHERE userID LIKE ? AND date=?";
-        LOAD_USER_RATING_BY_DATE = "SELECT * FROM ratings WHERE userID LIKE ? AND date=?";
-        LOAD_GLOBAL_RATING = "SELECT AVG(rating) AS average, COUNT(*) AS votes FROM (ratings r INNER JOIN (\n"
-                        + "    SELECT userID, mealID, MAX(date) AS MaxDate\n"
-                        + "    FROM ratings\n"
-                        + "    WHERE mealID=?\n"
-                        + "    GROUP BY userID, mealID\n"
-                        + ") rmax ON r.userID=rmax.userID AND r.mealID=rmax.mealID AND r.date=MaxDate);";
-        LOAD_USER_RATING = "SELECT rating from (ratings r INNER JOIN (\n"
+        DELETE_RATING = "DELETE FROM ratings WHERE userID=? AND date=?";
+        LOAD_USER_RATING_BY_DATE = "SELECT * FROM ratings WHERE userID=? AND date=?";
+        LOAD_GLOBAL_RATING = "SELECT rating_sum, votes FROM meal_rating_summary WHERE mealID=?";
+        LOAD_USER_RATING = "SELECT rating FROM meal_rating_latest WHERE mealID=? AND userID=?";
+        LOAD_SIMILAR_RATING = "SELECT AVG(l.rating) AS average, COUNT(*) AS votes\n"
+                        + "FROM meal_shortname_alias s INNER JOIN meal_rating_latest l ON l.mealID=s.mealID\n"
+                        + "WHERE s.shortAlias=? AND l.userID=?;";
+        LOAD_GLOBAL_RATINGS = "SELECT mealID, rating_sum, votes FROM meal_rating_summary WHERE mealID IN (%s)";
+        LOAD_USER_RATINGS = "SELECT mealID, rating FROM meal_rating_latest WHERE userID=? AND mealID IN (%s)";
+        LOAD_SIMILAR_RATINGS = "SELECT s.shortAlias, AVG(l.rating) AS average, COUNT(*) AS votes\n"
+                        + "FROM meal_shortname_alias s INNER JOIN meal_rating_latest l ON l.mealID=s.mealID\n"
+                        + "WHERE l.userID=? AND s.shortAlias IN (%s)\n"
+                        + "GROUP BY s.shortAlias;";
+        LOAD_RATINGS_BY_SHORT_ALIAS = "SELECT s.shortAlias, l.mealID, l.rating\n"
+                        + "FROM meal_rating_latest l INNER JOIN meal_shortname_alias s ON s.mealID=l.mealID\n"
+                        + "WHERE l.userID=? LIMIT ?;";
+        LOAD_LATEST_RATING = "SELECT date, rating FROM meal_rating_latest WHERE userID=? AND mealID=? FOR UPDATE";
+        SET_LATEST_RATING = "INSERT INTO meal_rating_latest VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE date=VALUES(date), rating=VALUES(rating)";
+        DELETE_LATEST_RATING = "DELETE FROM meal_rating_latest WHERE userID=? AND mealID=?";
+        UPDATE_RATING_SUMMARY = "INSERT INTO meal_rating_summary VALUES (?, ?, ?)\n"
+                        + "ON DUPLICATE KEY UPDATE rating_sum=rating_sum+VALUES(rating_sum), votes=votes+VALUES(votes)";
+        LOAD_RATED_MEALS_BY_DATE = "SELECT mealID FROM ratings WHERE userID=? AND date=? FOR UPDATE";
+        LOAD_PREVIOUS_RATING = "SELECT date, rating FROM ratings WHERE userID=? AND mealID=? ORDER BY date DESC LIMIT 1";
+        COUNT_RATING_SUMMARIES = "SELECT COUNT(*) AS amount FROM meal_rating_summary";
+        BACKFILL_LATEST_RATINGS = "INSERT INTO meal_rating_latest SELECT r.userID, r.mealID, r.date, r.rating FROM (ratings r INNER JOIN (\n"
                         + "    SELECT userID, mealID, MAX(date) AS MaxDate\n"
                         + "    FROM ratings\n"
-                        + "    WHERE mealID=? AND userID LIKE ?\n"
                         + "    GROUP BY userID, mealID\n"
-                        + ") rmax ON r.userID=rmax.userID AND r.mealID=rmax.mealID AND r.date=MaxDate);";
-        LOAD_SIMILAR_RATING = "SELECT AVG(rating) AS average, COUNT(*) AS votes FROM ratings r,\n"
-                        + "(SELECT userID, lastRatings.mealID AS mealID, MaxDate FROM\n"
-                        + "(SELECT mealID FROM meal_shortname_alias WHERE shortAlias LIKE ?) AS similarIDs,\n"
-                        + "(SELECT userID, mealID, MAX(date) AS MaxDate FROM ratings WHERE userID LIKE ? GROUP BY userID, mealID) AS lastRatings\n"
-                        + "WHERE similarIDs.mealID=lastRatings.mealID) AS similarLastRatings\n"
-                        + "WHERE r.userID=similarLastRatings.userID AND r.mealID=similarLastRatings.mealID AND r.date=similarLastRatings.MaxDate;";
-        LOAD_AUTOMATED_QUERY_IDS = "SELECT userID FROM users WHERE automated_query LIKE ?";
-        LOAD_CHATID_BY_USERID = "SELECT chatID FROM users WHERE userID LIKE ?";
+                        + ") rmax ON r.userID=rmax.userID AND r.mealID=rmax.mealID AND r.date=MaxDate)";
+        BACKFILL_RATING_SUMMARY = "INSERT INTO meal_rating_summary SELECT mealID, SUM(rating), COUNT(*) FROM meal_rating_latest GROUP BY mealID";
+        LOAD_AUTOMATED_QUERY_IDS = "SELECT userID FROM users WHERE automated_query=?";
+        LOAD_CHATID_BY_USERID = "SELECT chatID FROM users WHERE userID=?";
+        LOAD_ALL_MEAL_ALIASES = "SELECT mealID, alias FROM meal_name_alias";
+        LOAD_ALL_SHORT_ALIASES = "SELECT mealID, shortAlias FROM meal_shortname_alias";
+    }
+
+    protected void _loadMealAliases() {
+        try (Connection connection = getConnection();
+                PreparedStatement psA = connection.prepareStatement(LOAD_ALL_MEAL_ALIASES);
+                PreparedStatement psS = connection.prepareStatement(LOAD_ALL_SHORT_ALIASES)) {
+
+            mealIdCache.clear();
+            trigramIndex.clear();
+
+            ResultSet rs = psA.executeQuery();
+            while (rs.next()) {
+                mealIdCache.putAlias(rs.getString("alias"), rs.getInt("mealID"));
+                trigramIndex.add(rs.getString("alias"), rs.getInt("mealID"));
+            }
+
+            Map<String, Set<Integer>> idsByShortAlias = new HashMap<>();
+            ResultSet rsS = psS.executeQuery();
+            while (rsS.next()) {
+                idsByShortAlias.computeIfAbsent(rsS.getString("shortAlias"), k -> new HashSet<>())
+                        .add(rsS.getInt("mealID"));
+            }
+            idsByShortAlias.forEach(mealIdCache::putShortAlias);
+
+            LeckerSchmecker.getLogger().info("Loaded " + mealIdCache.size() + " meal aliases");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
     protected ChatContext _loadUser(LeckerSchmeckerBot bot, long chatID) {
@@ -333,7 +375,7 @@ public class DatabaseManager {
 
                 UUID userID = generator.generate();
 
-                psA.setString(1, userID.toString());
+                psA.setObject(1, userID);
                 psA.setLong(2, chatID);
                 psA.setString(3, null);
                 psA.setString(4, DietType.EVERYTHING.getId());
@@ -345,7 +387,7 @@ public class DatabaseManager {
 
                 return new ChatContext(bot, userID, chatID, null, DietType.EVERYTHING, ResourceManager.DEFAULTLOCALE, false, null, 0);
             } else {
-                UUID userID = UUID.fromString(rs.getString("userID"));
+                UUID userID = rs.getObject("userID", UUID.class);
 
                 String defaultCanteenRaw = rs.getString("default_canteen");
                 Canteen defaultCanteen = null;
@@ -367,7 +409,7 @@ public class DatabaseManager {
                     automatedQueryTime = LocalTime.parse(automatedQuery, parser);
                 }
 
-                psV.setString(1, userID.toString());
+                psV.setObject(1, userID);
                 ResultSet rsNOV = psV.executeQuery();
 
                 rsNOV.next();
@@ -403,7 +445,7 @@ public class DatabaseManager {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(SET_CANTEEN)){
             ps.setString(1, canteen != null ? canteen.getUrlName() : null);
-            ps.setString(2, userID.toString());
+            ps.setObject(2, userID);
             ps.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -415,7 +457,7 @@ public class DatabaseManager {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(SET_DIET_TYPE)){
             ps.setString(1, dietType != null ? dietType.getId() : null);
-            ps.setString(2, userID.toString());
+            ps.setObject(2, userID);
             ps.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -427,7 +469,7 @@ public class DatabaseManager {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(SET_AUTOMATED_QUERY)){
             ps.setString(1, time != null ? time.toString() : null);
-            ps.setString(2, userID.toString());
+            ps.setObject(2, userID);
             ps.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -438,7 +480,7 @@ public class DatabaseManager {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(SET_LOCALE)){
             ps.setString(1, locale.getLanguage() + "-" + locale.getCountry());
-            ps.setString(2, userID.toString());
+            ps.setObject(2, userID);
             ps.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -449,7 +491,7 @@ public class DatabaseManager {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(SET_COMPACT_LAYOUT)){
             ps.setBoolean(1, value);
-            ps.setString(2, userID.toString());
+            ps.setObject(2, userID);
             ps.executeUpdate();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -457,6 +499,16 @@ public class DatabaseManager {
     }
 
     protected Integer _loadMealID(String mealName) {
+        try {
+            return mealIdCache.getId(mealName, this::_queryMealID);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    protected Integer _queryMealID(String mealName) throws SQLException {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(LOAD_MEAL_BY_ALIAS)){
             ps.setString(1, mealName);
@@ -467,12 +519,7 @@ public class DatabaseManager {
             } else {
                 return rs.getInt("mealID");
             }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-
-        return null;
     }
 
     protected Integer _loadMealID(MainMeal meal) {
@@ -484,20 +531,97 @@ public class DatabaseManager {
     }
 
     protected Set<Integer> _loadMealIDsByShortAlias(MainMeal meal) {
+        try {
+            return mealIdCache.getIdsByShortAlias(meal.getShortAlias(),
+                    this::_queryMealIDsByShortAlias);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new HashSet<>();
+    }
+
+    protected Set<Integer> _queryMealIDsByShortAlias(String shortAlias) throws SQLException {
         Set<Integer> ids = new HashSet<>();
 
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(LOAD_MEALS_BY_SHORT_ALIAS)){
-            ps.setString(1, meal.getShortAlias());
+            ps.setString(1, shortAlias);
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
                 ids.add(rs.getInt("mealID"));
             }
+        }
+
+        return ids;
+    }
+
+    protected Map<String, Integer> _loadMealIDsByNames(Set<String> names) {
+        try {
+            return mealIdCache.getIdsByAliases(names, this::_queryMealIDsByNames);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new HashMap<>();
+    }
+
+    protected Map<String, Integer> _queryMealIDsByNames(Set<String> names) throws SQLException {
+        try (Connection connection = getConnection()) {
+            return _queryMealIDsByNames(connection, names);
+        }
+    }
+
+    protected Map<String, Integer> _queryMealIDsByNames(Connection connection,
+            Collection<String> names) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                String.format(LOAD_MEALS_BY_ALIASES, placeholders(names.size())))) {
+            int i = 1;
+            for (String name : names) {
+                ps.setString(i++, name);
+            }
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                ids.put(rs.getString("alias"), rs.getInt("mealID"));
+            }
+        }
+
+        return ids;
+    }
+
+    protected Map<String, Set<Integer>> _loadMealIDsByShortAliases(Set<String> shortAliases) {
+        try {
+            return mealIdCache.getIdsByShortAliases(shortAliases, this::_queryMealIDsByShortAliases);
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
+        return new HashMap<>();
+    }
+
+    protected Map<String, Set<Integer>> _queryMealIDsByShortAliases(Set<String> shortAliases)
+            throws SQLException {
+        Map<String, Set<Integer>> ids = new HashMap<>();
+
+        try (Connection connection = getConnection();
+                PreparedStatement ps = connection.prepareStatement(String.format(
+                        LOAD_MEALS_BY_SHORT_ALIASES, placeholders(shortAliases.size())))) {
+            int i = 1;
+            for (String shortAlias : shortAliases) {
+                ps.setString(i++, shortAlias);
+            }
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                ids.computeIfAbsent(rs.getString("shortAlias"), k -> new HashSet<>())
+                        .add(rs.getInt("mealID"));
+            }
+        }
+
         return ids;
     }
 
@@ -518,6 +642,10 @@ public class DatabaseManager {
             ps2.setInt(1, newID);
             ps2.setString(2, meal.getShortAlias());
             ps2.executeUpdate();
+
+            mealIdCache.putAlias(meal.getName(), newID);
+            mealIdCache.addShortAlias(meal.getShortAlias(), newID);
+            trigramIndex.add(meal.getName(), newID);
             return newID;
         } catch (SQLException e) {
             LeckerSchmecker.getLogger().warning("???");
@@ -526,6 +654,66 @@ public class DatabaseManager {
         return newID;
     }
 
+    /**
+     * Inserts all given meals in a single transaction. The names of the meals have to be unique.
+     *
+     * @return The IDs of the new meals by their names
+     */
+    protected Map<String, Integer> _addMeals(Collection<MainMeal> meals) {
+        if (meals.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement ps = connection.prepareStatement(ADD_NEW_MEAL_ALIAS);
+                    PreparedStatement ps2 = connection.prepareStatement(ADD_NEW_MEAL_SHORT_ALIAS)) {
+
+                for (MainMeal meal : meals) {
+                    ps.setString(1, meal.getName());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                // Generated keys of batches are driver specific, so query them instead
+                Map<String, Integer> ids = _queryMealIDsByNames(connection,
+                        meals.stream().map(MainMeal::getName).toList());
+
+                for (MainMeal meal : meals) {
+                    // The column may store the name differently, e.g. truncated or collated
+                    Integer id = ids.get(meal.getName());
+                    if (id == null) {
+                        throw new SQLException(
+                                "Meal '" + meal.getName() + "' not found after insert");
+                    }
+                    ps2.setInt(1, id);
+                    ps2.setString(2, meal.getShortAlias());
+                    ps2.addBatch();
+                }
+                ps2.executeBatch();
+
+                connection.commit();
+
+                for (MainMeal meal : meals) {
+                    mealIdCache.putAlias(meal.getName(), ids.get(meal.getName()));
+                    mealIdCache.addShortAlias(meal.getShortAlias(), ids.get(meal.getName()));
+                    trigramIndex.add(meal.getName(), ids.get(meal.getName()));
+                }
+                return ids;
+            } catch (SQLException | RuntimeException e) {
+                // Roll back on any failure, setAutoCommit(true) would commit the partial batch
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new HashMap<>();
+    }
+
     protected List<String> _getMealAliases(int mealID) {
         List<String> res = new LinkedList<>();
         try (Connection connection = getConnection();
@@ -549,31 +737,174 @@ public class DatabaseManager {
             ps.setInt(1, mealID);
             ps.setString(2, newAlias);
             ps.executeUpdate();
+
+            mealIdCache.putAlias(newAlias, mealID);
+            trigramIndex.add(newAlias, mealID);
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Stores the rating of today and updates the latest rating of the user and the summary of
+     * the meal in the same transaction.
+     */
     protected void _rateMeal(ChatContext context, MainMeal meal, int rating) {
-        try (Connection connection = getConnection();
-                PreparedStatement ps = connection.prepareStatement(RATE_MEAL)){
-            ps.setString(1, context.getUserID().toString());
-            ps.setInt(2, meal.getId());
-            ps.setDate(3, Date.valueOf(LocalDate.now()));
-            ps.setInt(4, rating);
-            ps.setInt(5, rating);
-            ps.executeUpdate();
+        UUID userID = context.getUserID();
+        LocalDate today = LocalDate.now();
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement ps = connection.prepareStatement(RATE_MEAL);
+                    PreparedStatement psL = connection.prepareStatement(LOAD_LATEST_RATING);
+                    PreparedStatement psS = connection.prepareStatement(SET_LATEST_RATING);
+                    PreparedStatement psU = connection.prepareStatement(UPDATE_RATING_SUMMARY)) {
+                ps.setObject(1, userID);
+                ps.setInt(2, meal.getId());
+                ps.setDate(3, Date.valueOf(today));
+                ps.setInt(4, rating);
+                ps.setInt(5, rating);
+                ps.executeUpdate();
+
+                psL.setObject(1, userID);
+                psL.setInt(2, meal.getId());
+                ResultSet rs = psL.executeQuery();
+                boolean rated = rs.next();
+                int previousRating = rated ? rs.getInt("rating") : 0;
+
+                psS.setObject(1, userID);
+                psS.setInt(2, meal.getId());
+                psS.setDate(3, Date.valueOf(today));
+                psS.setInt(4, rating);
+                psS.executeUpdate();
+
+                // Replace the previous rating of the user, if there is one
+                psU.setInt(1, meal.getId());
+                psU.setInt(2, rating - previousRating);
+                psU.setInt(3, rated ? 0 : 1);
+                psU.executeUpdate();
+
+                connection.commit();
+                ratingCache.invalidateMeal(meal.getId());
+                ratingCache.invalidateUser(context.getUserID());
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Deletes the ratings of the user at the given date. If they were the latest ratings of the
+     * user, the ratings before take their place in the summary.
+     */
     protected void _deleteRatingsAtDate(ChatContext context, LocalDate date) {
-        try (Connection connection = getConnection();
-                PreparedStatement ps = connection.prepareStatement(DELETE_RATING)){
-            ps.setString(1, context.getUserID().toString());
-            ps.setDate(2, Date.valueOf(date));
-            ps.executeUpdate();
+        UUID userID = context.getUserID();
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement psM = connection.prepareStatement(LOAD_RATED_MEALS_BY_DATE);
+                    PreparedStatement ps = connection.prepareStatement(DELETE_RATING);
+                    PreparedStatement psL = connection.prepareStatement(LOAD_LATEST_RATING);
+                    PreparedStatement psP = connection.prepareStatement(LOAD_PREVIOUS_RATING);
+                    PreparedStatement psS = connection.prepareStatement(SET_LATEST_RATING);
+                    PreparedStatement psD = connection.prepareStatement(DELETE_LATEST_RATING);
+                    PreparedStatement psU = connection.prepareStatement(UPDATE_RATING_SUMMARY)) {
+                psM.setObject(1, userID);
+                psM.setDate(2, Date.valueOf(date));
+                ResultSet rsM = psM.executeQuery();
+                List<Integer> mealIDs = new LinkedList<>();
+                while (rsM.next()) {
+                    mealIDs.add(rsM.getInt("mealID"));
+                }
+
+                ps.setObject(1, userID);
+                ps.setDate(2, Date.valueOf(date));
+                ps.executeUpdate();
+
+                for (int mealID : mealIDs) {
+                    psL.setObject(1, userID);
+                    psL.setInt(2, mealID);
+                    ResultSet rsL = psL.executeQuery();
+                    if (!rsL.next() || !rsL.getDate("date").toLocalDate().equals(date)) {
+                        continue;
+                    }
+                    int deletedRating = rsL.getInt("rating");
+
+                    psP.setObject(1, userID);
+                    psP.setInt(2, mealID);
+                    ResultSet rsP = psP.executeQuery();
+
+                    psU.setInt(1, mealID);
+                    if (rsP.next()) {
+                        psS.setObject(1, userID);
+                        psS.setInt(2, mealID);
+                        psS.setDate(3, rsP.getDate("date"));
+                        psS.setInt(4, rsP.getInt("rating"));
+                        psS.executeUpdate();
+
+                        psU.setInt(2, rsP.getInt("rating") - deletedRating);
+                        psU.setInt(3, 0);
+                    } else {
+                        psD.setObject(1, userID);
+                        psD.setInt(2, mealID);
+                        psD.executeUpdate();
+
+                        psU.setInt(2, -deletedRating);
+                        psU.setInt(3, -1);
+                    }
+                    psU.executeUpdate();
+                }
+
+                connection.commit();
+                mealIDs.forEach(ratingCache::invalidateMeal);
+                ratingCache.invalidateUser(context.getUserID());
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    protected void _backfillRatingSummary() {
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement psC = connection.prepareStatement(COUNT_RATING_SUMMARIES);
+                    PreparedStatement psL = connection.prepareStatement(BACKFILL_LATEST_RATINGS);
+                    PreparedStatement psS = connection.prepareStatement(BACKFILL_RATING_SUMMARY)) {
+                ResultSet rs = psC.executeQuery();
+                if (rs.next() && rs.getInt("amount") > 0) {
+                    connection.rollback();
+                    return;
+                }
+
+                long start = System.nanoTime();
+                int latestRatings = psL.executeUpdate();
+                int summaries = psS.executeUpdate();
+                connection.commit();
+
+                if (latestRatings > 0) {
+                    LeckerSchmecker.getLogger().info("Backfilled rating summary of " + summaries
+                            + " meals from " + latestRatings + " latest ratings in "
+                            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -582,7 +913,7 @@ public class DatabaseManager {
     protected int _numberOfRatingsByDate(ChatContext context, LocalDate date) {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(LOAD_USER_RATING_BY_DATE)){
-            ps.setString(1, context.getUserID().toString());
+            ps.setObject(1, context.getUserID());
             ps.setDate(2, Date.valueOf(date));
             ResultSet rs = ps.executeQuery();
 
@@ -605,25 +936,27 @@ public class DatabaseManager {
             return null;
         }
 
+        try {
+            return ratingCache.getGlobalRating(meal, this::_queryGlobalRating);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    protected RatingInfo _queryGlobalRating(MainMeal meal) throws SQLException {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(LOAD_GLOBAL_RATING)){
             ps.setInt(1, meal.getId());
             ResultSet rs = ps.executeQuery();
 
-            if (!rs.next()) {
+            if (!rs.next() || rs.getInt("votes") == 0) {
                 return null;
             }
 
-            if (rs.getFloat("average") == 0f) {
-                return null; // rs.getFloat returns 0f if the value is null
-            }
-
-            return new RatingInfo(meal, rs.getFloat("average"), rs.getInt("votes"), false);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+            int votes = rs.getInt("votes");
+            return new RatingInfo(meal, (float) rs.getInt("rating_sum") / votes, votes, false);
         }
-        return null;
     }
 
     protected RatingInfo _getUserRating(ChatContext context, MainMeal meal) {
@@ -633,17 +966,33 @@ public class DatabaseManager {
             return null;
         }
 
+        try {
+            return ratingCache.getUserRating(context.getUserID(), meal,
+                    m -> _queryUserRating(context, m));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    protected RatingInfo _queryUserRating(ChatContext context, MainMeal meal) throws SQLException {
         try (Connection connection = getConnection();
                 PreparedStatement psU = connection.prepareStatement(LOAD_USER_RATING);
                 PreparedStatement psS = connection.prepareStatement(LOAD_SIMILAR_RATING)) {
             psU.setInt(1, meal.getId());
-            psU.setString(2, context.getUserID().toString());
+            psU.setObject(2, context.getUserID());
             ResultSet rs = psU.executeQuery();
 
             // Check if the user did NOT rate this exact meal yet
             if (!rs.next()) {
+                SimilarRatingIndex index = ratingCache.getSimilarRatingIndex(context.getUserID(),
+                        this::_querySimilarRatingIndex);
+                if (index.isComplete()) {
+                    return index.getEstimatedRating(meal);
+                }
+
                 psS.setString(1, meal.getShortAlias());
-                psS.setString(2, context.getUserID().toString());
+                psS.setObject(2, context.getUserID());
                 ResultSet rsSimilar = psS.executeQuery();
 
                 if (!rsSimilar.next()) {
@@ -658,11 +1007,158 @@ public class DatabaseManager {
             }
 
             return new RatingInfo(meal, rs.getFloat("rating"), 1, false);
+        }
+    }
+
+    /**
+     * Loads the latest ratings of the user by short alias.
+     */
+    protected SimilarRatingIndex _querySimilarRatingIndex(UUID userID) throws SQLException {
+        int maxSize = Config.getSimilarRatingIndexSize();
+
+        try (Connection connection = getConnection();
+                PreparedStatement ps = connection.prepareStatement(LOAD_RATINGS_BY_SHORT_ALIAS)) {
+            ps.setObject(1, userID);
+            // One more than fits, so the index notices that it is incomplete
+            ps.setInt(2, maxSize + 1);
+            ResultSet rs = ps.executeQuery();
+
+            SimilarRatingIndex index = new SimilarRatingIndex(maxSize);
+            while (rs.next()) {
+                index.put(rs.getString("shortAlias"), rs.getInt("mealID"), rs.getInt("rating"));
+            }
+            return index;
+        }
+    }
+
+    protected Map<MainMeal, Tuple<RatingInfo, RatingInfo>> _getRatings(ChatContext context,
+            Collection<MainMeal> meals) {
+        Map<MainMeal, Tuple<RatingInfo, RatingInfo>> res = new HashMap<>();
+
+        // Cannot return ratings for meals which are still waiting for admin input
+        List<MainMeal> knownMeals = new LinkedList<>();
+        for (MainMeal meal : meals) {
+            res.put(meal, new Tuple<>(null, null));
+            if (meal.getId() != null) {
+                knownMeals.add(meal);
+            }
+        }
+        if (knownMeals.isEmpty()) {
+            return res;
+        }
 
+        try {
+            Map<Integer, RatingInfo> globalRatings = ratingCache.getGlobalRatings(knownMeals,
+                    this::_queryGlobalRatings);
+            Map<Integer, RatingInfo> userRatings = ratingCache.getUserRatings(
+                    context.getUserID(), knownMeals, m -> _queryUserRatings(context, m));
+
+            for (MainMeal meal : knownMeals) {
+                res.put(meal, new Tuple<>(globalRatings.get(meal.getId()),
+                        userRatings.get(meal.getId())));
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return null;
+        return res;
+    }
+
+    protected Map<Integer, RatingInfo> _queryGlobalRatings(List<MainMeal> meals)
+            throws SQLException {
+        Map<Integer, MainMeal> mealsByID = new HashMap<>();
+        meals.forEach(meal -> mealsByID.put(meal.getId(), meal));
+        Map<Integer, RatingInfo> res = new HashMap<>();
+
+        try (Connection connection = getConnection();
+                PreparedStatement ps = connection.prepareStatement(
+                        String.format(LOAD_GLOBAL_RATINGS, placeholders(mealsByID.size())))) {
+            int i = 1;
+            for (int mealID : mealsByID.keySet()) {
+                ps.setInt(i++, mealID);
+            }
+            ResultSet rs = ps.executeQuery();
+
+            while (rs.next()) {
+                int votes = rs.getInt("votes");
+                if (votes > 0) {
+                    int mealID = rs.getInt("mealID");
+                    res.put(mealID, new RatingInfo(mealsByID.get(mealID),
+                            (float) rs.getInt("rating_sum") / votes, votes, false));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Loads the ratings of the user for the given meals. Meals the user did not rate yet get the
+     * average rating of the similar meals the user rated, if any.
+     */
+    protected Map<Integer, RatingInfo> _queryUserRatings(ChatContext context,
+            List<MainMeal> meals) throws SQLException {
+        UUID userID = context.getUserID();
+        Map<Integer, MainMeal> mealsByID = new HashMap<>();
+        meals.forEach(meal -> mealsByID.put(meal.getId(), meal));
+        Map<Integer, RatingInfo> res = new HashMap<>();
+
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    String.format(LOAD_USER_RATINGS, placeholders(mealsByID.size())))) {
+                ps.setObject(1, userID);
+                int i = 2;
+                for (int mealID : mealsByID.keySet()) {
+                    ps.setInt(i++, mealID);
+                }
+                ResultSet rs = ps.executeQuery();
+
+                while (rs.next()) {
+                    int mealID = rs.getInt("mealID");
+                    res.put(mealID, new RatingInfo(mealsByID.get(mealID), rs.getFloat("rating"),
+                            1, false));
+                }
+            }
+
+            SimilarRatingIndex index = ratingCache.getSimilarRatingIndex(userID,
+                    this::_querySimilarRatingIndex);
+            Map<String, List<MainMeal>> unratedByShortAlias = new HashMap<>();
+            for (MainMeal meal : mealsByID.values()) {
+                if (res.containsKey(meal.getId())) {
+                    continue;
+                }
+
+                if (index.isComplete()) {
+                    RatingInfo estimated = index.getEstimatedRating(meal);
+                    if (estimated != null) {
+                        res.put(meal.getId(), estimated);
+                    }
+                } else {
+                    unratedByShortAlias.computeIfAbsent(meal.getShortAlias(),
+                            k -> new LinkedList<>()).add(meal);
+                }
+            }
+            if (unratedByShortAlias.isEmpty()) {
+                return res;
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(String.format(
+                    LOAD_SIMILAR_RATINGS, placeholders(unratedByShortAlias.size())))) {
+                ps.setObject(1, userID);
+                int i = 2;
+                for (String shortAlias : unratedByShortAlias.keySet()) {
+                    ps.setString(i++, shortAlias);
+                }
+                ResultSet rs = ps.executeQuery();
+
+                while (rs.next()) {
+                    for (MainMeal meal : unratedByShortAlias.getOrDefault(
+                            rs.getString("shortAlias"), List.of())) {
+                        res.put(meal.getId(), new RatingInfo(meal, rs.getFloat("average"),
+                                rs.getInt("votes"), true));
+                    }
+                }
+            }
+        }
+        return res;
     }
 
     protected List<UUID> _getAutomatedQueryIds(LocalTime time) {
@@ -678,7 +1174,7 @@ public class DatabaseManager {
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
-                res.add(UUID.fromString(rs.getString("userID")));
+                res.add(rs.getObject("userID", UUID.class));
             }
 
         } catch (SQLException e) {
@@ -690,7 +1186,7 @@ public class DatabaseManager {
     protected Long _getChatIdByUserId(UUID uuid) {
         try (Connection connection = getConnection();
                 PreparedStatement ps = connection.prepareStatement(LOAD_CHATID_BY_USERID)){
-            ps.setString(1, uuid.toString());
+            ps.setObject(1, uuid);
             ResultSet rs = ps.executeQuery();
 
             rs.next();
@@ -703,5 +1199,8 @@ public class DatabaseManager {
 
     // ///////////////////////////////////////////////////////////////////////////////////////
 
+    private static String placeholders(int amount) {
+        return String.join(", ", Collections.nCopies(amount, "?"));
+    }
 
 }
@@ -0,0 +1,187 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the meal_name_alias and meal_shortname_alias tables. Names which are not
+ * known to the database are cached as well (negative entries), until a meal or alias with that
+ * name is added.
+ */
+public class MealIdCache {
+
+    // An empty Optional marks a name which is not known to the database
+    private final Map<String, Optional<Integer>> idByAlias = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> idsByShortAlias = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the ID of the given alias, or null if there is no meal with that alias. Aliases
+     * which are not cached yet are looked up by the given loader.
+     */
+    public Integer getId(String alias, Loader<String, Integer> loader) throws SQLException {
+        Optional<Integer> cached = idByAlias.get(alias);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.orElse(null);
+        }
+
+        misses.incrementAndGet();
+        Integer id = loader.load(alias);
+        idByAlias.put(alias, Optional.ofNullable(id));
+        return id;
+    }
+
+    /**
+     * Returns the IDs of all meals with the given short alias. Short aliases which are not cached
+     * yet are looked up by the given loader.
+     */
+    public Set<Integer> getIdsByShortAlias(String shortAlias, Loader<String, Set<Integer>> loader)
+            throws SQLException {
+        Set<Integer> cached = idsByShortAlias.get(shortAlias);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        Set<Integer> ids = Set.copyOf(loader.load(shortAlias));
+        idsByShortAlias.put(shortAlias, ids);
+        return ids;
+    }
+
+    /**
+     * Returns the IDs of all given aliases which belong to a meal. All aliases which are not
+     * cached yet are looked up at once by the given loader.
+     */
+    public Map<String, Integer> getIdsByAliases(Set<String> aliases,
+            Loader<Set<String>, Map<String, Integer>> loader) throws SQLException {
+        Map<String, Integer> res = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+
+        for (String alias : aliases) {
+            Optional<Integer> cached = idByAlias.get(alias);
+            if (cached == null) {
+                missing.add(alias);
+            } else {
+                cached.ifPresent(id -> res.put(alias, id));
+            }
+        }
+        hits.addAndGet(aliases.size() - missing.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<String, Integer> loaded = loader.load(missing);
+            for (String alias : missing) {
+                Integer id = loaded.get(alias);
+                idByAlias.put(alias, Optional.ofNullable(id));
+                if (id != null) {
+                    res.put(alias, id);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the IDs of the meals for each of the given short aliases. All short aliases which
+     * are not cached yet are looked up at once by the given loader.
+     */
+    public Map<String, Set<Integer>> getIdsByShortAliases(Set<String> shortAliases,
+            Loader<Set<String>, Map<String, Set<Integer>>> loader) throws SQLException {
+        Map<String, Set<Integer>> res = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+
+        for (String shortAlias : shortAliases) {
+            Set<Integer> cached = idsByShortAlias.get(shortAlias);
+            if (cached == null) {
+                missing.add(shortAlias);
+            } else {
+                res.put(shortAlias, cached);
+            }
+        }
+        hits.addAndGet(shortAliases.size() - missing.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<String, Set<Integer>> loaded = loader.load(missing);
+            for (String shortAlias : missing) {
+                Set<Integer> ids = Set.copyOf(loaded.getOrDefault(shortAlias, Set.of()));
+                idsByShortAlias.put(shortAlias, ids);
+                res.put(shortAlias, ids);
+            }
+        }
+        return res;
+    }
+
+    public void putAlias(String alias, Integer mealID) {
+        idByAlias.put(alias, Optional.ofNullable(mealID));
+    }
+
+    public void putShortAlias(String shortAlias, Set<Integer> mealIDs) {
+        idsByShortAlias.put(shortAlias, Set.copyOf(mealIDs));
+    }
+
+    public void addShortAlias(String shortAlias, int mealID) {
+        idsByShortAlias.compute(shortAlias, (k, ids) -> {
+            // Do not cache an incomplete set of IDs, it is loaded on the next lookup instead
+            if (ids == null) {
+                return null;
+            }
+            Set<Integer> res = new HashSet<>(ids);
+            res.add(mealID);
+            return Set.copyOf(res);
+        });
+    }
+
+    public void clear() {
+        idByAlias.clear();
+        idsByShortAlias.clear();
+    }
+
+    public int size() {
+        return idByAlias.size() + idsByShortAlias.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public float getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0f : (float) getHits() / total;
+    }
+
+    public interface Loader<K, V> {
+
+        V load(K key) throws SQLException;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import database.MealIdCache.Loader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import meal.MainMeal;
+import rating.RatingInfo;
+import rating.SimilarRatingIndex;
+import util.Tuple;
+
+/**
+ * In-memory cache of the global ratings per meal and the ratings of each user per meal. Both
+ * are bounded, the least recently used entries are evicted first, and entries expire after a
+ * fixed time. Meals without a rating are cached as well.
+ * Entries are invalidated by the rating writes, so users see their own votes immediately.
+ * The cache also holds the similar rating indices of a bounded number of users, which expire
+ * and are invalidated the same way.
+ */
+public class RatingCache {
+
+    private final long ttlNanos;
+
+    // Guarded by this
+    private final Map<Integer, Entry> globalRatings;
+    private final Map<Tuple<UUID, Integer>, Entry> userRatings;
+    private final Map<UUID, IndexEntry> similarRatingIndices;
+    // Incremented on every invalidation, so ratings loaded before are not cached afterwards
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RatingCache(int maxSize, int maxIndices, long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.globalRatings = createLruMap(maxSize);
+        this.userRatings = createLruMap(maxSize);
+        this.similarRatingIndices = createLruMap(maxIndices);
+    }
+
+    /**
+     * Returns the global rating of the given meal, or null if it has not been rated yet. Ratings
+     * which are not cached yet are looked up by the given loader.
+     */
+    public RatingInfo getGlobalRating(MainMeal meal, Loader<MainMeal, RatingInfo> loader)
+            throws SQLException {
+        return get(globalRatings, meal.getId(), meal, loader);
+    }
+
+    /**
+     * Returns the rating of the given meal by the user, or null if there is neither a rating of
+     * the meal nor of a similar meal. Ratings which are not cached yet are looked up by the given
+     * loader.
+     */
+    public RatingInfo getUserRating(UUID userID, MainMeal meal,
+            Loader<MainMeal, RatingInfo> loader) throws SQLException {
+        return get(userRatings, new Tuple<>(userID, meal.getId()), meal, loader);
+    }
+
+    private <K> RatingInfo get(Map<K, Entry> ratings, K key, MainMeal meal,
+            Loader<MainMeal, RatingInfo> loader) throws SQLException {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            Entry cached = ratings.get(key);
+            if (cached != null && now - cached.loadedAt < ttlNanos) {
+                hits.incrementAndGet();
+                return cached.toRatingInfo(meal);
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        RatingInfo rating = loader.load(meal);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                ratings.put(key, new Entry(rating, now));
+            }
+        }
+        return rating;
+    }
+
+    /**
+     * Returns the global ratings of the given meals by their ID. Meals without rating are left
+     * out. All meals which are not cached yet are looked up at once by the given loader.
+     */
+    public Map<Integer, RatingInfo> getGlobalRatings(Collection<MainMeal> meals,
+            Loader<List<MainMeal>, Map<Integer, RatingInfo>> loader) throws SQLException {
+        return getAll(globalRatings, MainMeal::getId, meals, loader);
+    }
+
+    /**
+     * Returns the ratings of the given meals by the user by their ID. Meals without rating are
+     * left out. All meals which are not cached yet are looked up at once by the given loader.
+     */
+    public Map<Integer, RatingInfo> getUserRatings(UUID userID, Collection<MainMeal> meals,
+            Loader<List<MainMeal>, Map<Integer, RatingInfo>> loader) throws SQLException {
+        return getAll(userRatings, meal -> new Tuple<>(userID, meal.getId()), meals, loader);
+    }
+
+    private <K> Map<Integer, RatingInfo> getAll(Map<K, Entry> ratings,
+            Function<MainMeal, K> keyFunction, Collection<MainMeal> meals,
+            Loader<List<MainMeal>, Map<Integer, RatingInfo>> loader) throws SQLException {
+        Map<Integer, RatingInfo> res = new HashMap<>();
+        List<MainMeal> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            for (MainMeal meal : meals) {
+                Entry cached = ratings.get(keyFunction.apply(meal));
+                if (cached == null || now - cached.loadedAt >= ttlNanos) {
+                    missing.add(meal);
+                } else if (cached.numVotes >= 0) {
+                    res.put(meal.getId(), cached.toRatingInfo(meal));
+                }
+            }
+            loadGeneration = generation;
+        }
+        hits.addAndGet(meals.size() - missing.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<Integer, RatingInfo> loaded = loader.load(missing);
+            synchronized (this) {
+                for (MainMeal meal : missing) {
+                    RatingInfo rating = loaded.get(meal.getId());
+                    if (generation == loadGeneration) {
+                        ratings.put(keyFunction.apply(meal), new Entry(rating, now));
+                    }
+                    if (rating != null) {
+                        res.put(meal.getId(), rating);
+                    }
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the similar rating index of the user. Indices which are not cached yet or have
+     * expired are loaded by the given loader.
+     */
+    public SimilarRatingIndex getSimilarRatingIndex(UUID userID,
+            Loader<UUID, SimilarRatingIndex> loader) throws SQLException {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            IndexEntry cached = similarRatingIndices.get(userID);
+            if (cached != null && now - cached.loadedAt < ttlNanos) {
+                return cached.index;
+            }
+            loadGeneration = generation;
+        }
+
+        SimilarRatingIndex index = loader.load(userID);
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                similarRatingIndices.put(userID, new IndexEntry(index, now));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Drops the global rating of the meal.
+     */
+    public synchronized void invalidateMeal(int mealID) {
+        generation++;
+        globalRatings.remove(mealID);
+    }
+
+    /**
+     * Drops all ratings of the user. Ratings of other meals depend on each other via similar
+     * meals, so all of them are dropped, as well as the similar rating index of the user.
+     */
+    public synchronized void invalidateUser(UUID userID) {
+        generation++;
+        userRatings.keySet().removeIf(key -> key.getA().equals(userID));
+        similarRatingIndices.remove(userID);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        globalRatings.clear();
+        userRatings.clear();
+        similarRatingIndices.clear();
+    }
+
+    public synchronized int size() {
+        return globalRatings.size() + userRatings.size();
+    }
+
+    public synchronized int getSimilarRatingIndexCount() {
+        return similarRatingIndices.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static <K, V> Map<K, V> createLruMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private static class Entry {
+
+        // A negative number of votes marks a meal without rating
+        private final float rating;
+        private final int numVotes;
+        private final boolean isEstimated;
+        private final long loadedAt;
+
+        private Entry(RatingInfo rating, long loadedAt) {
+            this.rating = rating == null ? 0f : rating.getRating();
+            this.numVotes = rating == null ? -1 : rating.getNumVotes();
+            this.isEstimated = rating != null && rating.isEstimated();
+            this.loadedAt = loadedAt;
+        }
+
+        private RatingInfo toRatingInfo(MainMeal meal) {
+            return numVotes < 0 ? null : new RatingInfo(meal, rating, numVotes, isEstimated);
+        }
+    }
+
+    private static class IndexEntry {
+
+        private final SimilarRatingIndex index;
+        private final long loadedAt;
+
+        private IndexEntry(SimilarRatingIndex index, long loadedAt) {
+            this.index = index;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
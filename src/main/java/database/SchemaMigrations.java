@@ -0,0 +1,218 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import meal.LeckerSchmecker;
+
+/**
+ * Versioned changes of the database schema. The version of a database is stored in the
+ * schema_version table, each migration which is newer is applied once, in order. Migrations are
+ * never changed after they have been released, changes of the schema are appended as a new
+ * migration instead.
+ * The statements of the baseline migration do not fail for tables which already exist, so
+ * databases created before the migrations were introduced are migrated as well.
+ */
+public class SchemaMigrations {
+
+    private static final String CREATE_SCHEMA_VERSION = "create table if not exists schema_version\n" +
+            "(\n" +
+            "    version     int          not null,\n" +
+            "    description VARCHAR(200) not null,\n" +
+            "    applied_at  TIMESTAMP    default CURRENT_TIMESTAMP not null,\n" +
+            "    constraint schema_version_pk\n" +
+            "        primary key (version)\n" +
+            ");";
+    private static final String LOAD_SCHEMA_VERSION = "SELECT MAX(version) AS version FROM schema_version";
+    private static final String ADD_SCHEMA_VERSION = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+
+    public static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Baseline", List.of(
+                    "create table if not exists users\n" +
+                        "(\n" +
+                        "    userID          UUID                                                                                                                        not null,\n" +
+                        "    chatID          BIGINT                                                                                                                      not null,\n" +
+                        "    default_canteen ENUM ('academica', 'ahornstrasse', 'vita', 'templergraben', 'bayernallee', 'eupenerstrasse', 'kmac', 'juelich', 'suedpark') null,\n" +
+                        "    default_diet_type ENUM ('vegan', 'vegetarian', 'nopork', 'nofish', 'all') default 'all' not null,\n" +
+                        "    language        ENUM ('en-GB', 'de-DE', 'es-ES', 'zh-CN') default 'en-GB' not null,\n" +
+                        "    compact_layout  TINYINT                                   default 0 not null,\n" +
+                        "    automated_query ENUM ('08:00', '09:00', '10:00', '11:00', '12:00') null,\n" +
+                        "    constraint users_pk\n" +
+                        "        primary key (userID)\n" +
+                        ");\n",
+
+                    "create unique index if not exists users_chatID_index\n" +
+                        "    on users (chatID desc);",
+
+                    "create table if not exists meal_name_alias\n" +
+                        "(\n" +
+                        "    mealID int auto_increment,\n" +
+                        "    alias  VARCHAR(200) not null,\n" +
+                        "    constraint meal_name_alias_pk\n" +
+                        "        primary key (mealID, alias)\n" +
+                        ");",
+
+                    "create unique index if not exists meal_name_alias_alias_uindex\n" +
+                        "    on meal_name_alias (alias);",
+
+                    "create table if not exists meal_shortname_alias\n" +
+                        "(\n" +
+                        "    mealID     int          null,\n" +
+                        "    shortAlias VARCHAR(200) not null,\n" +
+                        "    constraint meal_shortname_alias_pk\n" +
+                        "        primary key (mealID, shortAlias),\n" +
+                        "    constraint meal_shortname_alias_meal_name_alias_mealID_fk\n" +
+                        "        foreign key (mealID) references meal_name_alias (mealID)\n" +
+                        ");",
+
+                    "create index if not exists meal_shortname_alias_shortAlias_index\n" +
+                        "    on meal_shortname_alias (shortAlias);",
+
+                    "create table if not exists ratings\n" +
+                        "(\n" +
+                        "    userID UUID    not null,\n" +
+                        "    mealID int     not null,\n" +
+                        "    date   DATE    not null,\n" +
+                        "    rating TINYINT not null,\n" +
+                        "    constraint ratings_pk\n" +
+                        "        primary key (userID, mealID, date),\n" +
+                        "    constraint ratings_meal_name_alias_mealID_fk\n" +
+                        "        foreign key (mealID) references meal_name_alias (mealID),\n" +
+                        "    constraint ratings_users_userID_fk\n" +
+                        "        foreign key (userID) references users (userID)\n" +
+                        ");\n",
+
+                    "create index if not exists ratings_mealID_index\n" +
+                        "    on ratings (mealID desc);"
+            )),
+
+            new Migration(2, "Rating summary", List.of(
+                    "create table if not exists meal_rating_latest\n" +
+                        "(\n" +
+                        "    userID UUID    not null,\n" +
+                        "    mealID int     not null,\n" +
+                        "    date   DATE    not null,\n" +
+                        "    rating TINYINT not null,\n" +
+                        "    constraint meal_rating_latest_pk\n" +
+                        "        primary key (userID, mealID),\n" +
+                        "    constraint meal_rating_latest_meal_name_alias_mealID_fk\n" +
+                        "        foreign key (mealID) references meal_name_alias (mealID),\n" +
+                        "    constraint meal_rating_latest_users_userID_fk\n" +
+                        "        foreign key (userID) references users (userID)\n" +
+                        ");\n",
+
+                    "create table if not exists meal_rating_summary\n" +
+                        "(\n" +
+                        "    mealID     int not null,\n" +
+                        "    rating_sum int not null,\n" +
+                        "    votes      int not null,\n" +
+                        "    constraint meal_rating_summary_pk\n" +
+                        "        primary key (mealID),\n" +
+                        "    constraint meal_rating_summary_meal_name_alias_mealID_fk\n" +
+                        "        foreign key (mealID) references meal_name_alias (mealID)\n" +
+                        ");\n"
+            )),
+
+            // Secondary indexes contain the primary key, so these cover the queries completely
+            new Migration(3, "Covering indexes", List.of(
+                    // Ratings of a user at a date, for deleting and restoring them
+                    "create index if not exists ratings_userID_date_index\n" +
+                        "    on ratings (userID, date, rating);",
+
+                    // Users with an automated query at a time
+                    "create index if not exists users_automated_query_index\n" +
+                        "    on users (automated_query);",
+
+                    // Index of the foreign key, named like the one InnoDB creates implicitly. It
+                    // must not depend on an index which may be dropped, see error 1553
+                    "create index if not exists meal_rating_latest_meal_name_alias_mealID_fk\n" +
+                        "    on meal_rating_latest (mealID);"
+            ))
+    );
+
+    /**
+     * Applies all migrations which are newer than the version of the database.
+     *
+     * @return the version of the database afterwards
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_SCHEMA_VERSION);
+        }
+
+        int version = 0;
+        try (Statement stmt = connection.createStatement()) {
+            ResultSet rs = stmt.executeQuery(LOAD_SCHEMA_VERSION);
+            if (rs.next()) {
+                version = rs.getInt("version"); // 0 if there is no version yet
+            }
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.getVersion() <= version) {
+                continue;
+            }
+
+            // DDL statements are committed implicitly, so the version is recorded afterwards
+            try (Statement stmt = connection.createStatement();
+                    PreparedStatement ps = connection.prepareStatement(ADD_SCHEMA_VERSION)) {
+                for (String statement : migration.getStatements()) {
+                    stmt.addBatch(statement);
+                }
+                stmt.executeBatch();
+
+                ps.setInt(1, migration.getVersion());
+                ps.setString(2, migration.getDescription());
+                ps.executeUpdate();
+            }
+            version = migration.getVersion();
+            LeckerSchmecker.getLogger().info("Applied schema migration " + version + ": "
+                    + migration.getDescription());
+        }
+        return version;
+    }
+
+    public static class Migration {
+
+        private final int version;
+        private final String description;
+        private final List<String> statements;
+
+        public Migration(int version, String description, List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public List<String> getStatements() {
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import util.Tuple;
+
+/**
+ * Inverted index from the trigrams of all meal aliases to the aliases containing them. It finds
+ * meals whose aliases are similar to a name, e.g. differ by a typo, without scanning the
+ * meal_name_alias table. Similarity is the Jaccard index of the trigram sets of both names.
+ */
+public class TrigramIndex {
+
+    // Pads names, so the first and last characters are part of as many trigrams as the others
+    private static final char PADDING = '$';
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Postings> postingsByTrigram = new HashMap<>();
+    private final Map<String, Integer> indexByAlias = new HashMap<>();
+    private final List<String> aliases = new ArrayList<>();
+    private final List<Integer> mealIDs = new ArrayList<>();
+    private int[] trigramCounts = new int[16];
+
+    // Shared trigrams per alias, reused by the lookups of each thread and zeroed after each one
+    private final ThreadLocal<int[]> sharedCounts = ThreadLocal.withInitial(() -> new int[0]);
+
+    /**
+     * Adds the alias of the given meal. Known aliases are moved to the given meal.
+     */
+    public void add(String alias, int mealID) {
+        lock.writeLock().lock();
+        try {
+            Integer index = indexByAlias.get(alias);
+            if (index != null) {
+                mealIDs.set(index, mealID);
+                return;
+            }
+
+            index = aliases.size();
+            long[] trigrams = trigrams(alias);
+            for (long trigram : trigrams) {
+                postingsByTrigram.computeIfAbsent(trigram, t -> new Postings()).add(index);
+            }
+            if (index == trigramCounts.length) {
+                trigramCounts = Arrays.copyOf(trigramCounts, index * 2);
+            }
+            trigramCounts[index] = trigrams.length;
+            indexByAlias.put(alias, index);
+            aliases.add(alias);
+            mealIDs.add(mealID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to k meals with an alias similar to the given name, together with their
+     * similarity between 0 and 1. The most similar meals come first.
+     */
+    public List<Tuple<Integer, Float>> findSimilar(String name, int k, float minSimilarity) {
+        long[] trigrams = trigrams(name);
+        // An alias needs at least this many shared trigrams to reach the minimal similarity
+        int minShared = Math.max(1, (int) Math.ceil(minSimilarity * trigrams.length));
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(trigrams.length);
+            for (long trigram : trigrams) {
+                lists.add(postingsByTrigram.getOrDefault(trigram, Postings.EMPTY));
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+
+            // Every alias with enough shared trigrams appears in one of the rarest lists, so only
+            // these add candidates. The common lists only count trigrams of known candidates.
+            int scanned = trigrams.length - minShared + 1;
+            int[] counts = sharedCounts.get();
+            if (counts.length < aliases.size()) {
+                counts = new int[trigramCounts.length];
+                sharedCounts.set(counts);
+            }
+            int[] candidates = new int[16];
+            int candidateCount = 0;
+            for (int i = 0; i < scanned; i++) {
+                Postings postings = lists.get(i);
+                for (int j = 0; j < postings.size; j++) {
+                    int index = postings.indices[j];
+                    if (counts[index]++ == 0) {
+                        if (candidateCount == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                        }
+                        candidates[candidateCount++] = index;
+                    }
+                }
+            }
+            // Candidates missing too many of the remaining trigrams are dropped. Once few are left,
+            // looking them up is cheaper than scanning the list.
+            for (int i = scanned; i < lists.size(); i++) {
+                Postings postings = lists.get(i);
+                if (candidateCount * 32 < postings.size) {
+                    for (int j = 0; j < candidateCount; j++) {
+                        if (postings.contains(candidates[j])) {
+                            counts[candidates[j]]++;
+                        }
+                    }
+                } else {
+                    for (int j = 0; j < postings.size; j++) {
+                        int index = postings.indices[j];
+                        if (counts[index] != 0) {
+                            counts[index]++;
+                        }
+                    }
+                }
+
+                int remaining = lists.size() - i - 1;
+                int kept = 0;
+                for (int j = 0; j < candidateCount; j++) {
+                    int index = candidates[j];
+                    if (counts[index] + remaining >= minShared) {
+                        candidates[kept++] = index;
+                    } else {
+                        counts[index] = 0;
+                    }
+                }
+                candidateCount = kept;
+            }
+
+            // Several aliases may belong to the same meal, keep the best one
+            Map<Integer, Float> similarityByMeal = new HashMap<>();
+            for (int i = 0; i < candidateCount; i++) {
+                int index = candidates[i];
+                int shared = counts[index];
+                counts[index] = 0;
+
+                float similarity = (float) shared
+                        / (trigrams.length + trigramCounts[index] - shared);
+                if (similarity >= minSimilarity) {
+                    similarityByMeal.merge(mealIDs.get(index), similarity, Math::max);
+                }
+            }
+
+            return similarityByMeal.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Float>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(k)
+                    .map(Tuple::new)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postingsByTrigram.clear();
+            indexByAlias.clear();
+            aliases.clear();
+            mealIDs.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return aliases.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the distinct trigrams of the padded name, each packed into a long.
+     */
+    static long[] trigrams(String name) {
+        String padded = "" + PADDING + PADDING + name + PADDING;
+        long[] res = new long[padded.length() - 2];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16)
+                    | padded.charAt(i + 2);
+        }
+
+        Arrays.sort(res);
+        int distinct = 0;
+        for (int i = 0; i < res.length; i++) {
+            if (i == 0 || res[i] != res[i - 1]) {
+                res[distinct++] = res[i];
+            }
+        }
+        return Arrays.copyOf(res, distinct);
+    }
+
+    /**
+     * Indices of the aliases containing a trigram, in ascending order, as aliases are only
+     * appended.
+     */
+    private static class Postings {
+
+        private static final Postings EMPTY = new Postings();
+
+        private int[] indices = new int[4];
+        private int size;
+
+        private void add(int index) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = index;
+        }
+
+        private boolean contains(int index) {
+            return Arrays.binarySearch(indices, 0, size, index) >= 0;
+        }
+    }
+}
@@ -17,13 +17,15 @@
 package meal;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import org.jsoup.Jsoup;
+import java.util.concurrent.atomic.AtomicReference;
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
 
@@ -63,13 +65,21 @@ public class Canteen {
     private final String urlName;
     private final LocalTime openingTime;
     private final LocalTime closingTime;
-    private final Map<LocalDate, DailyOffer> dailyOffers = new HashMap<>();
+    private final AtomicReference<OfferSnapshot> snapshot = new AtomicReference<>(
+            OfferSnapshot.EMPTY);
+    private final CircuitBreaker circuitBreaker;
+    // Time of the last refresh which succeeded, no matter if the offers changed
+    private volatile Instant lastRefresh = Instant.EPOCH;
+    private OfferPage parsedPageDE;
+    private OfferPage parsedPageEN;
+    private LocalDate parsedDate;
 
     private Canteen(String displayName, String urlName, LocalTime openingTime, LocalTime closingTime) {
         this.displayName = displayName;
         this.urlName = urlName;
         this.openingTime = openingTime;
         this.closingTime = closingTime;
+        this.circuitBreaker = new CircuitBreaker(displayName);
     }
 
     public String getDisplayName() {
@@ -88,20 +98,58 @@ public class Canteen {
         return closingTime;
     }
 
+    /**
+     * Returns the file name of the weekly offer page, e.g. "academica-w.html".
+     */
+    public String getPageName(boolean english) {
+        return urlName + (english ? "-w-en.html" : "-w.html");
+    }
+
+    public OfferPage loadPage(boolean english) throws IOException {
+        return OfferSources.get().load(this, english);
+    }
+
     public void fetchDailyOffers() {
-        dailyOffers.clear();
+        OfferPage pageDE;
+        OfferPage pageEN;
+        try {
+            pageDE = loadPage(false);
+            pageEN = loadPage(true);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        updateDailyOffers(pageDE, pageEN);
+    }
+
+    /**
+     * Parses the given pages and replaces the current offers. Parsing is skipped if neither page
+     * changed since the last update on the same day.
+     *
+     * @return true, if the offers were parsed again
+     */
+    public boolean updateDailyOffers(OfferPage pageDE, OfferPage pageEN) {
+        // Offers depend on the current date as well, e.g. past days are dropped while parsing
+        LocalDate today = LocalDate.now();
+        if (pageDE.hasSameContent(parsedPageDE) && pageEN.hasSameContent(parsedPageEN)
+                && today.equals(parsedDate)) {
+            return false;
+        }
+
+        // Force parsing on the next update, if parsing fails this time
+        parsedDate = null;
 
         Document docDE;
         Document docEN;
         try {
-            docDE = Jsoup.connect("https://www.studierendenwerk-aachen.de/speiseplaene/" +
-                    urlName + "-w.html").get();
-            docEN = Jsoup.connect("https://www.studierendenwerk-aachen.de/speiseplaene/" +
-                    urlName + "-w-en.html").get();
+            docDE = pageDE.parse();
+            docEN = pageEN.parse();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
+        // Build the new offers off to the side, readers keep using the current snapshot meanwhile
+        Map<LocalDate, DailyOffer> dailyOffers = new HashMap<>();
+
         Elements elementsDE = docDE.getElementsByClass("preventBreak");
         Elements elementsEN = docEN.getElementsByClass("preventBreak");
         for (int i = 0; i < elementsDE.size(); i++) {
@@ -110,16 +158,73 @@ public class Canteen {
                 dailyOffers.put(offer.getDate(), offer);
             }
         }
-        LeckerSchmecker.getLogger().info("Fetched " + this.dailyOffers.values().stream()
-                .mapToInt(d -> d.getMainMeals().size()).sum() + " meals for canteen '" +
-                this.getDisplayName() + "'");
+
+        // Only meals which are new or changed since the last snapshot need to be resolved
+        OfferDiff diff = OfferDiff.compare(dailyOffers, snapshot.get());
+        MealResolver.resolve(diff.getUnresolvedMeals());
+        LeckerSchmecker.getLogger().info("Offers of canteen '" + displayName + "': " + diff.summary());
+
+        snapshot.set(snapshot.get().next(diff.getDailyOffers()));
+        parsedPageDE = pageDE;
+        parsedPageEN = pageEN;
+        parsedDate = today;
+        return true;
+    }
+
+    /**
+     * Sets the given snapshot, unless offers were fetched already. The next update parses the
+     * pages in any case and compares them against the restored offers.
+     */
+    public boolean restoreSnapshot(OfferSnapshot restored) {
+        if (!snapshot.compareAndSet(OfferSnapshot.EMPTY, restored)) {
+            return false;
+        }
+        lastRefresh = restored.getCreatedAt();
+        return true;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void markRefreshed(Instant time) {
+        lastRefresh = time;
+    }
+
+    public Instant getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * Returns the time since the offers were last confirmed to be up to date.
+     */
+    public Duration getFreshnessLag(Instant now) {
+        return Duration.between(lastRefresh, now);
+    }
+
+    /**
+     * Returns true, if the offers might be outdated, as the circuit breaker stopped fetching them
+     * after repeated failures or the offers were restored and not refreshed yet. A single failed
+     * refresh is retried soon and does not make the offers stale.
+     */
+    public boolean isStale() {
+        return circuitBreaker.getState() != CircuitBreaker.State.CLOSED
+                || getSnapshot().isRestored();
+    }
+
+    public OfferSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    public int getNumberOfMeals() {
+        return getSnapshot().getNumberOfMeals();
     }
 
     public Map<LocalDate, DailyOffer> getDailyOffers() {
-        return dailyOffers;
+        return getSnapshot().getDailyOffers();
     }
 
     public Optional<DailyOffer> getDailyOffer(LocalDate date) {
-        return Optional.ofNullable(this.dailyOffers.get(date));
+        return getSnapshot().getDailyOffer(date);
     }
 }
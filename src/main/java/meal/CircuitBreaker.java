@@ -0,0 +1,90 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Stops fetching the offers of a canteen after several failures in a row. After a waiting time,
+ * which doubles with every opening, a single probe is let through (half-open). The breaker
+ * closes again on the first success.
+ */
+public class CircuitBreaker {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final Duration BASE_OPEN_TIME = Duration.ofMinutes(5);
+    private static final Duration MAX_OPEN_TIME = Duration.ofHours(2);
+
+    private final String name;
+    private State state = State.CLOSED;
+    private int failures;
+    private int openings;
+    private Instant openUntil = Instant.EPOCH;
+
+    public CircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns true, if a request may be sent. An open breaker becomes half-open once its waiting
+     * time is over.
+     */
+    public synchronized boolean allowRequest(Instant now) {
+        if (state == State.OPEN && !now.isBefore(openUntil)) {
+            state = State.HALF_OPEN;
+            LeckerSchmecker.getLogger().info("Probing offers of '" + name + "' again");
+        }
+        return state != State.OPEN;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            LeckerSchmecker.getLogger().info("Offers of '" + name + "' are available again");
+        }
+        state = State.CLOSED;
+        failures = 0;
+        openings = 0;
+    }
+
+    public synchronized void recordFailure(Instant now) {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= FAILURE_THRESHOLD) {
+            Duration openTime = BASE_OPEN_TIME.multipliedBy(1L << Math.min(openings, 10));
+            if (openTime.compareTo(MAX_OPEN_TIME) > 0) {
+                openTime = MAX_OPEN_TIME;
+            }
+            openings++;
+            state = State.OPEN;
+            openUntil = now.plus(openTime);
+            LeckerSchmecker.getLogger().warning("Not fetching offers of '" + name + "' for "
+                    + openTime.toMinutes() + " min after " + failures + " failures");
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+}
@@ -21,66 +21,77 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import util.DateUtils;
 
+/**
+ * Offer of a canteen on one day. It never changes once built, so all views needed to render
+ * the offer or to select a meal are computed up front.
+ */
 public class DailyOffer {
 
-    private final SortedSet<MainMeal> meals = new TreeSet<>(Comparator.comparing(MainMeal::getType)
-            .thenComparing(Meal::getName));
-    private final Set<SideMeal> sideMeals = new HashSet<>();
     private final LocalDate date;
+    private final List<MainMeal> mainMeals;
+    private final List<SideMeal> sideMeals;
+    private final Map<DietType, List<MainMeal>> mainMealsByDiet = new EnumMap<>(DietType.class);
+    private final Map<SideMeal.Type, List<SideMeal>> sideMealsByType = new EnumMap<>(
+            SideMeal.Type.class);
+    private final LocalizedNames namesDE;
+    private final LocalizedNames namesEN;
+
+    private DailyOffer(Builder builder) {
+        this.date = builder.date;
+        this.mainMeals = List.copyOf(builder.mainMeals);
+        this.sideMeals = List.copyOf(builder.sideMeals);
+
+        for (DietType dietType : DietType.values()) {
+            mainMealsByDiet.put(dietType,
+                    mainMeals.stream().filter(m -> m.isInDiet(dietType)).toList());
+        }
+        for (SideMeal.Type type : SideMeal.Type.values()) {
+            sideMealsByType.put(type,
+                    sideMeals.stream().filter(m -> m.getType() == type).toList());
+        }
 
-
-    public DailyOffer(LocalDate date) {
-        this.date = date;
-    }
-
-    public void addMeal(MainMeal meal) {
-        if (meal == null) return;
-        this.meals.add(meal);
-    }
-
-    public void addMeals(Collection<MainMeal> meals) {
-        meals.forEach(this::addMeal);
-    }
-
-    public void addSideMeal(SideMeal meal) {
-        if (meal == null) return;
-        this.sideMeals.add(meal);
+        this.namesDE = new LocalizedNames(this, Meal.GERMAN);
+        this.namesEN = new LocalizedNames(this, Locale.UK);
     }
 
     public static DailyOffer parseOffer(Element elementDE, Element elementEN) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEEE',' dd.MM.yyyy",
-                Locale.GERMANY);
+        return parseOffer(elementDE, elementEN, LocalDate.now(), Config.getInt("meals.daysToFetch"));
+    }
 
-        Elements headLineElements = elementDE.getElementsByClass("active-headline");
-        if (headLineElements.isEmpty()) {
-            headLineElements = elementDE.getElementsByClass("default-headline");
-        }
-        String fullDate = headLineElements.get(0).text();
-        LocalDate date = LocalDate.parse(fullDate, formatter);
+    /**
+     * Parses the offer of a single day, if the day is within the given number of days from today
+     * on.
+     */
+    public static DailyOffer parseOffer(Element elementDE, Element elementEN, LocalDate today,
+            int daysToFetch) {
+        LocalDate date = parseDate(elementDE);
 
         // Check if the date is already in the past
-        if (date.isBefore(LocalDate.now())) {
+        if (date.isBefore(today)) {
             return null;
         }
 
         // Check if the date is too far in the future
-        if (!date.isBefore(DateUtils.addDaysSkippingWeekends(LocalDate.now(), Config.getInt("meals.daysToFetch")))) {
+        if (!date.isBefore(DateUtils.addDaysSkippingWeekends(today, daysToFetch))) {
             // Meals this far in the future are prone to contain typos and are oftentimes subject to change
             return null;
         }
 
-        DailyOffer res = new DailyOffer(date);
+        Builder res = new Builder(date);
 
         Elements htmlMealsDE = elementDE.getElementsByClass("menues").get(0)
                 .getElementsByClass("menue-wrapper");
@@ -88,7 +99,7 @@ public class DailyOffer {
                 .getElementsByClass("menue-wrapper");
 
         for (int i = 0; i < htmlMealsDE.size(); i++) {
-            res.addMeals(MainMeal.parseMeal(res, htmlMealsDE.get(i), htmlMealsEN.get(i)));
+            res.addMeals(MainMeal.parseMeal(date, htmlMealsDE.get(i), htmlMealsEN.get(i)));
         }
 
         Elements htmlExtrasDE = elementDE.getElementsByClass("extras").get(0)
@@ -100,32 +111,121 @@ public class DailyOffer {
                     .forEach(res::addSideMeal);
         }
 
-        return res;
+        return res.createDailyOffer();
     }
 
-    public Set<MainMeal> getMainMeals() {
-        return meals;
+    public static LocalDate parseDate(Element elementDE) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEEE',' dd.MM.yyyy",
+                Locale.GERMANY);
+
+        Elements headLineElements = elementDE.getElementsByClass("active-headline");
+        if (headLineElements.isEmpty()) {
+            headLineElements = elementDE.getElementsByClass("default-headline");
+        }
+        String fullDate = headLineElements.get(0).text();
+        return LocalDate.parse(fullDate, formatter);
     }
 
-    public Set<SideMeal> getSideMeals() {
+    /**
+     * Returns all main meals, ordered by their type and name.
+     */
+    public List<MainMeal> getMainMeals() {
+        return mainMeals;
+    }
+
+    public List<MainMeal> getMainMeals(DietType dietType) {
+        return mainMealsByDiet.get(dietType);
+    }
+
+    /**
+     * Returns the display names of the main meals fitting the given diet.
+     */
+    public List<String> getMainMealNames(DietType dietType, Locale locale) {
+        return getNames(locale).mainMealNamesByDiet.get(dietType);
+    }
+
+    public List<SideMeal> getSideMeals() {
         return sideMeals;
     }
 
-    public Set<SideMeal> getSideMeals(SideMeal.Type type) {
-        return sideMeals.stream().filter(m -> m.getType().equals(type)).collect(Collectors.toSet());
+    public List<SideMeal> getSideMeals(SideMeal.Type type) {
+        return sideMealsByType.get(type);
+    }
+
+    public List<String> getSideMealNames(SideMeal.Type type, Locale locale) {
+        return getNames(locale).sideMealNamesByType.get(type);
     }
 
     public Optional<MainMeal> getMainMealByDisplayName(String displayName, Locale locale) {
         if (displayName == null) {
             return Optional.empty();
         }
-        return this.getMainMeals().stream()
-                .filter(m -> displayName.equals(m.getDisplayName(locale)))
-                .findFirst();
+        return Optional.ofNullable(getNames(locale).mainMealsByDisplayName.get(displayName));
     }
 
     public LocalDate getDate() {
         return date;
     }
 
+    private LocalizedNames getNames(Locale locale) {
+        return Meal.GERMAN.equals(locale) ? namesDE : namesEN;
+    }
+
+    /**
+     * Display names of the meals in one language.
+     */
+    private static class LocalizedNames {
+
+        private final Map<String, MainMeal> mainMealsByDisplayName = new HashMap<>();
+        private final Map<DietType, List<String>> mainMealNamesByDiet = new EnumMap<>(
+                DietType.class);
+        private final Map<SideMeal.Type, List<String>> sideMealNamesByType = new EnumMap<>(
+                SideMeal.Type.class);
+
+        private LocalizedNames(DailyOffer offer, Locale locale) {
+            // Meals with the same name can only be told apart by their order
+            for (MainMeal meal : offer.mainMeals) {
+                mainMealsByDisplayName.putIfAbsent(meal.getDisplayName(locale), meal);
+            }
+            offer.mainMealsByDiet.forEach((dietType, meals) -> mainMealNamesByDiet.put(dietType,
+                    meals.stream().map(m -> m.getDisplayName(locale)).toList()));
+            offer.sideMealsByType.forEach((type, meals) -> sideMealNamesByType.put(type,
+                    meals.stream().map(m -> m.getDisplayName(locale)).toList()));
+        }
+    }
+
+    public static class Builder {
+
+        private final LocalDate date;
+        private final SortedSet<MainMeal> mainMeals = new TreeSet<>(
+                Comparator.comparing(MainMeal::getType).thenComparing(Meal::getName));
+        private final Set<SideMeal> sideMeals = new LinkedHashSet<>();
+
+        public Builder(LocalDate date) {
+            this.date = date;
+        }
+
+        public Builder addMeal(MainMeal meal) {
+            if (meal != null) {
+                this.mainMeals.add(meal);
+            }
+            return this;
+        }
+
+        public Builder addMeals(Collection<MainMeal> meals) {
+            meals.forEach(this::addMeal);
+            return this;
+        }
+
+        public Builder addSideMeal(SideMeal meal) {
+            if (meal != null) {
+                this.sideMeals.add(meal);
+            }
+            return this;
+        }
+
+        public DailyOffer createDailyOffer() {
+            return new DailyOffer(this);
+        }
+    }
 }
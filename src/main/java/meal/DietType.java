@@ -49,20 +49,38 @@ public enum DietType {
                 .findFirst();
     }
 
-    public static boolean isMealInDiet(List<Nutrition> nutritions, DietType dietType) {
-        if (nutritions.isEmpty()) {
+    public static boolean isMealInDiet(int nutritionMask, DietType dietType) {
+        if (nutritionMask == 0) {
             return true;
         }
 
         return switch (dietType) {
             case EVERYTHING -> true;
-            case NOPORK -> !nutritions.contains(Nutrition.PORK);
-            case NOFISH -> !nutritions.contains(Nutrition.FISH);
-            case VEGAN -> nutritions.contains(Nutrition.VEGAN);
-            case VEGETARIAN -> nutritions.contains(Nutrition.VEGAN) || nutritions.contains(Nutrition.VEGETARIAN);
+            case NOPORK -> (nutritionMask & Nutrition.PORK.getMask()) == 0;
+            case NOFISH -> (nutritionMask & Nutrition.FISH.getMask()) == 0;
+            case VEGAN -> (nutritionMask & Nutrition.VEGAN.getMask()) != 0;
+            case VEGETARIAN -> (nutritionMask & (Nutrition.VEGAN.getMask()
+                    | Nutrition.VEGETARIAN.getMask())) != 0;
         };
     }
 
+    /**
+     * Returns the masks of all diet types, which a meal with the given nutritions fits into.
+     */
+    public static int toMask(int nutritionMask) {
+        int mask = 0;
+        for (DietType dietType : TYPES) {
+            if (isMealInDiet(nutritionMask, dietType)) {
+                mask |= dietType.getMask();
+            }
+        }
+        return mask;
+    }
+
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
     public String getDisplayName(Locale locale) {
         return ResourceManager.getString(bundleKey, locale);
     }
@@ -0,0 +1,42 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.io.IOException;
+
+/**
+ * Downloads the offer pages from the Studierendenwerk site or a mirror of it, using the shared
+ * client and the validators of {@link OfferPageCache}.
+ */
+public class HttpOfferSource implements OfferSource {
+
+    private final String baseUrl;
+
+    public HttpOfferSource(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+
+    @Override
+    public OfferPage load(Canteen canteen, boolean english) throws IOException {
+        return OfferPageCache.load(baseUrl + canteen.getPageName(english));
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
@@ -18,18 +18,27 @@ package meal;
 
 import config.Config;
 import database.DatabaseManager;
+import database.MealIdCache;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
@@ -48,12 +57,16 @@ import util.DateUtils;
 
 public class LeckerSchmecker {
 
-    private static Logger logger;
+    // Created right away, so the parsers can log without the bot running (e.g. in benchmarks)
+    private static final Logger logger = Logger.getLogger("RWTH-LS");
 
     private static final Object exit = Void.TYPE;
 
     private static final Timer timer = new Timer();
 
+    private static final long startTime = System.nanoTime();
+    private static final AtomicBoolean menuServed = new AtomicBoolean();
+
     public static void main(String[] args) {
         Config.readAllowedUsers();
         initLogger();
@@ -61,6 +74,9 @@ public class LeckerSchmecker {
 
         DatabaseManager.connect();
         DatabaseManager.setupTables();
+        DatabaseManager.backfillRatingSummary();
+        DatabaseManager.loadMealAliases();
+        loadOffers();
 
         try {
             TelegramBotsApi botsApi = new TelegramBotsApi(DefaultBotSession.class);
@@ -68,9 +84,10 @@ public class LeckerSchmecker {
         } catch (TelegramApiException e) {
             e.printStackTrace();
         }
+        logger.info("Bot is ready " + millisSinceStart() + "ms after startup");
 
-        // schedule update task without a delay
-        timer.schedule(new UpdateOfferTask(), 0);
+        // schedule update task without a delay, it refreshes the restored offers
+        timer.schedule(new UpdateOfferTask(Canteen.TYPES), 0);
 
         LocalDateTime dateTime = nextAutomatedQueryTime();
         timer.schedule(new AutomatedQueryTask(), Date.from(dateTime.atZone(ZoneOffset.systemDefault()).toInstant()));
@@ -98,11 +115,11 @@ public class LeckerSchmecker {
 
     public static void exit() {
         System.out.println("LeckerSchmecker is shutting down. Cleaning up...");
+        OfferFetcher.shutdown();
         DatabaseManager.disconnect();
     }
 
     private static void initLogger() {
-        logger = Logger.getLogger("RWTH-LS");
         logger.setUseParentHandlers(false);
 
         SimpleFormatter formatter = new SimpleFormatter() {
@@ -135,43 +152,106 @@ public class LeckerSchmecker {
         }
     }
 
-    public static void updateOffers() {
-        Canteen.TYPES.forEach(Canteen::fetchDailyOffers);
-        logger.info("Updated canteen offers");
+    /**
+     * Restores the offers stored by the last run, so menus can be served before the first
+     * refresh is done.
+     */
+    private static void loadOffers() {
+        long start = System.nanoTime();
+        Path file = Path.of(Config.getSnapshotFile());
+        try {
+            int restored = OfferStore.load(file, LocalDate.now());
+            logger.info("Restored offers of " + restored + " canteens from " + file + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Could not restore offers from " + file);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Called once a refresh of several canteens is done, stores the offers if any of them
+     * changed.
+     */
+    private static void onOffersUpdated(Collection<OfferFetcher.Result> results) {
+        if (results.contains(OfferFetcher.Result.CHANGED)) {
+            try {
+                OfferStore.save(Path.of(Config.getSnapshotFile()), Canteen.TYPES);
+            } catch (IOException e) {
+                logger.warning("Could not store offers");
+                e.printStackTrace();
+            }
+        }
+
+        MealIdCache cache = DatabaseManager.getMealIdCache();
+        logger.info("Updated canteen offers (meal ID cache: " + cache.size() + " entries, "
+                + Math.round(cache.getHitRate() * 100) + "% hit rate)");
+    }
+
+    private static void scheduleUpdate(Canteen canteen, OfferFetcher.Result result) {
+        LocalDateTime dateTime = RefreshPolicy.nextRefresh(canteen, result, LocalDateTime.now());
+        timer.schedule(new UpdateOfferTask(List.of(canteen)),
+                Date.from(dateTime.atZone(ZoneOffset.systemDefault()).toInstant()));
+        logger.info("Scheduled update of canteen '" + canteen.getDisplayName() + "' until "
+                + dateTime.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
+    }
+
+    /**
+     * Called whenever a menu was sent, logs the time until the first menu was served.
+     */
+    public static void onMenuServed() {
+        if (menuServed.compareAndSet(false, true)) {
+            logger.info("Served the first menu " + millisSinceStart() + "ms after startup");
+        }
+    }
+
+    private static long millisSinceStart() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
     }
 
     public static Logger getLogger() {
         return logger;
     }
 
+    /**
+     * Refreshes the offers of the given canteens and schedules the next refresh of each canteen
+     * on its own. The task only dispatches the refresh, so the timer thread never waits for a
+     * page and a slow canteen does not delay the others or the automated queries.
+     */
     public static class UpdateOfferTask extends TimerTask {
-        @Override
-        public void run() {
-            try {
-                updateOffers();
-
-                LocalDateTime now = LocalDateTime.now();
-                LocalDateTime dateTime;
 
-                // fetch every 15 min between daily opening hours (excluding saturday and sunday)
-                if (!now.getDayOfWeek().equals(DayOfWeek.SATURDAY)
-                    && !now.getDayOfWeek().equals(DayOfWeek.SUNDAY)
-                    && now.getHour() >= 10
-                    && (now.getHour() < 14) || (now.getHour() == 14 && now.getMinute() <= 30)) {
+        private final List<Canteen> canteens;
 
-                    dateTime = now.plusMinutes(15).withSecond(0);
-                } else {
-                    dateTime = now.plusHours(4).withMinute(0).withSecond(0);
-                }
+        public UpdateOfferTask(List<Canteen> canteens) {
+            this.canteens = canteens;
+        }
 
-                timer.schedule(new UpdateOfferTask(), Date.from(dateTime.atZone(ZoneOffset.systemDefault()).toInstant()));
-                logger.info("Scheduled update until " +
-                    dateTime.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")));
+        @Override
+        public void run() {
+            Map<Canteen, CompletableFuture<OfferFetcher.Result>> refreshes;
+            try {
+                refreshes = OfferFetcher.refresh(canteens);
             } catch (Exception e) {
                 logger.warning("Unexpected exception thrown");
                 e.printStackTrace();
+                canteens.forEach(c -> scheduleUpdate(c, OfferFetcher.Result.FAILED));
+                return;
             }
 
+            // Each canteen is rescheduled as soon as its own refresh is done
+            List<CompletableFuture<OfferFetcher.Result>> done = new ArrayList<>();
+            refreshes.forEach((canteen, refresh) -> done.add(refresh.handle((result, e) -> {
+                if (e != null) {
+                    logger.warning("Unexpected exception thrown");
+                    e.printStackTrace();
+                    result = OfferFetcher.Result.FAILED;
+                }
+                scheduleUpdate(canteen, result);
+                return result;
+            })));
+
+            CompletableFuture.allOf(done.toArray(new CompletableFuture[0])).thenRun(
+                    () -> onOffersUpdated(done.stream().map(CompletableFuture::join).toList()));
         }
     }
 
@@ -182,7 +262,7 @@ public class LeckerSchmecker {
                 for (UUID uuid : DatabaseManager.getAutomatedQueryIds(LocalTime.now()
                     .withMinute(0).withSecond(0).withNano(0))) {
                     // Send personalized meal queries
-                    ChatContext context = DatabaseManager.loadUser(LeckerSchmeckerBot.getInstance(), DatabaseManager.getChatIdByUserId(uuid));
+                    ChatContext context = LeckerSchmeckerBot.getInstance().getContextIfActive(DatabaseManager.getChatIdByUserId(uuid));
 
                     if (!context.hasCanteen()) {
                         SendMessage message = new SendMessage();
@@ -18,6 +18,7 @@ package meal;
 
 import database.DatabaseManager;
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -30,7 +31,6 @@ import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch;
 import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch.Diff;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
-import telegram.LeckerSchmeckerBot;
 import util.Triple;
 import util.Tuple;
 
@@ -49,17 +49,26 @@ public class MainMeal extends Meal {
     private final Type type;
     private final float price;
     private final List<Nutrition> nutritions;
-    private Integer id;
+    // Derived from the nutritions once, as they are needed on every rendering of a menu
+    private final int nutritionMask;
+    private final int dietMask;
+    private final String symbols;
+    // Set later on by the admins for meals that are similar to known meals
+    private volatile Integer id;
 
     public MainMeal(Builder builder) {
         super(builder.name, builder.displayNameDE, builder.displayNameEN);
         this.type = builder.type;
         this.price = builder.price;
-        this.nutritions = builder.nutritions;
+        this.nutritions = builder.nutritions == null ? List.of() : List.copyOf(builder.nutritions);
+        this.nutritionMask = Nutrition.toMask(this.nutritions);
+        this.dietMask = DietType.toMask(this.nutritionMask);
+        this.symbols = this.nutritions.isEmpty() ? NO_NUTRITION_SYMBOL
+                : this.nutritions.stream().map(Nutrition::getSymbol).collect(Collectors.joining());
         this.id = builder.id;
     }
 
-    public static List<MainMeal> parseMeal(DailyOffer offer, Element elementDE, Element elementEN) {
+    public static List<MainMeal> parseMeal(LocalDate date, Element elementDE, Element elementEN) {
 
         // parse from html
         String htmlNameDE = elementDE.getElementsByClass("expand-nutr").get(0).ownText();
@@ -72,8 +81,10 @@ public class MainMeal extends Meal {
             return List.of();
         }
 
+        LinkedList<Nutrition> nutritions = Nutrition.searchNutrientsFor(elementDE);
+
         String category = elementDE.getElementsByClass("menue-category").get(0).ownText();
-        Type type = Type.getMealTypeFromCategory(category, elementDE);
+        Type type = Type.getMealTypeFromCategory(category, Nutrition.toMask(nutritions));
 
         if (type == null) {
             LeckerSchmecker.getLogger()
@@ -92,10 +103,8 @@ public class MainMeal extends Meal {
             price = type.getPrice();
         }
 
-        LinkedList<Nutrition> nutritions = Nutrition.searchNutrientsFor(elementDE);
-
         if ((type.equals(Type.TELLERGERICHT) || type.equals(Type.TELLERGERICHT_VEGETARISCH))
-                && offer.getDate().getDayOfWeek().equals(DayOfWeek.FRIDAY)) {
+                && date.getDayOfWeek().equals(DayOfWeek.FRIDAY)) {
             nutritions.addFirst(Nutrition.SWEET);
         }
 
@@ -129,47 +138,34 @@ public class MainMeal extends Meal {
                 displayNameEN = displayNameDE;
             }
 
-            String name = compress(displayNameDE);
-
-            // set name and display names
-            builder.setName(name)
+            // set name and display names and create meal, IDs are resolved later on
+            meals.add(builder.setName(compress(displayNameDE))
                     .setDisplayNameDE(displayNameDE)
-                    .setDisplayNameEN(displayNameEN);
-
-            // database
-            Integer id = DatabaseManager.loadMealIDByName(name);
-
-            // meal already exists
-            if (id != null) {
-                // set id and create meal
-                builder.setId(id);
-                meals.add(builder.createMainMeal());
-                continue;
-            }
-
-            // create meal with builder
-            MainMeal meal = builder.createMainMeal();
-            meals.add(meal);
-
-            Set<Integer> similarIDs = DatabaseManager.loadMealIDsByShortAlias(meal);
-
-            // if no short name matches,then insert meal into database, else ask admins
-            if (similarIDs.isEmpty()) {
-                meal.id = DatabaseManager.addMeal(meal);
-            } else {
-                LeckerSchmecker.getLogger()
-                        .info("Found similar meal for '" + meal.getName() + "', asking admins");
-                LeckerSchmeckerBot.getInstance().askAdmins(meal, similarIDs);
-            }
-
+                    .setDisplayNameEN(displayNameEN)
+                    .createMainMeal());
         }
 
         return meals;
     }
 
+    /**
+     * Checks whether the other meal was parsed from exactly the same data as this meal. The IDs
+     * of the meals are not compared.
+     */
+    public boolean hasSameContent(MainMeal other) {
+        return other != null
+                && this.name.equals(other.name)
+                && this.displayNameDE.equals(other.displayNameDE)
+                && this.displayNameEN.equals(other.displayNameEN)
+                && this.type == other.type
+                && this.price == other.price
+                && this.nutritions.equals(other.nutritions);
+    }
+
     public String getShortAlias() {
-        if (displayNameDE.contains("|")) {
-            return compress(displayNameDE.split("\\|")[0]);
+        int separator = displayNameDE.indexOf('|');
+        if (separator >= 0) {
+            return compress(displayNameDE.substring(0, separator));
         }
         return name;
     }
@@ -188,16 +184,21 @@ public class MainMeal extends Meal {
     }
 
     public String getSymbols() {
-        if (this.nutritions.isEmpty()) {
-            return NO_NUTRITION_SYMBOL;
-        }
-        return this.nutritions.stream().map(Nutrition::getSymbol).collect(Collectors.joining());
+        return symbols;
     }
 
     public List<Nutrition> getNutritions() {
         return nutritions;
     }
 
+    public int getNutritionMask() {
+        return nutritionMask;
+    }
+
+    public boolean isInDiet(DietType dietType) {
+        return (dietMask & dietType.getMask()) != 0;
+    }
+
     public Integer getId() {
         return id;
     }
@@ -207,23 +208,7 @@ public class MainMeal extends Meal {
     }
 
     private static String compress(String displayName) {
-        String res = displayName;
-        res = res.replace("|", " ")
-                .replace("-", " ")
-                .replace(":", " ")
-                .replace(",", " ")
-                .replace(".", " ")
-                .replace("&", " ")
-                .replace("/", " ")
-                .replace("\\", " ")
-                .toLowerCase()
-                .replace("ß", "ss")
-                .replace(" mit ", " ")
-                .replace(" und ", " ")
-                .replace(" oder ", " ")
-                .trim()
-                .replaceAll(" +", "_");
-        return res;
+        return NameNormalizer.normalize(displayName);
     }
 
     @Override
@@ -261,7 +246,7 @@ public class MainMeal extends Meal {
             this.price = price;
         }
 
-        public static Type getMealTypeFromCategory(String category, Element e) {
+        public static Type getMealTypeFromCategory(String category, int nutritionMask) {
             switch (category) {
                 case "Tellergericht vegetarisch" -> {
                     return TELLERGERICHT_VEGETARISCH;
@@ -276,9 +261,8 @@ public class MainMeal extends Meal {
                     return KLASSIKER;
                 }
                 case "Wok" -> {
-                    List<Nutrition> nutritions = Nutrition.searchNutrientsFor(e);
-                    if (nutritions.contains(Nutrition.VEGAN) || nutritions.contains(
-                            Nutrition.VEGETARIAN)) {
+                    if ((nutritionMask & (Nutrition.VEGAN.getMask()
+                            | Nutrition.VEGETARIAN.getMask())) != 0) {
                         return WOK_VEGETARISCH;
                     }
                     return WOK;
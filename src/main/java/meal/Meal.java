@@ -20,6 +20,9 @@ import java.util.Locale;
 
 public class Meal {
 
+    // Display names are German for this locale and English for all others
+    static final Locale GERMAN = new Locale("de", "DE");
+
     protected final String name;
     protected final String displayNameDE;
     protected final String displayNameEN;
@@ -35,7 +38,7 @@ public class Meal {
     }
 
     public String getDisplayName(Locale locale) {
-        if (locale.equals(new Locale("de", "DE"))) {
+        if (locale.equals(GERMAN)) {
             return displayNameDE;
         }
         return displayNameEN;
@@ -0,0 +1,140 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import database.DatabaseManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import telegram.LeckerSchmeckerBot;
+import util.Tuple;
+
+/**
+ * Resolves the IDs of all meals of a canteen at once. Known names and short aliases are looked
+ * up with one query each, unknown meals are inserted in a single transaction. Only meals which
+ * are similar to known meals, by their short alias or their trigrams, are left to the admins.
+ */
+public class MealResolver {
+
+    // Candidates found by the trigram index, in addition to meals with the same short alias
+    private static final int MAX_CANDIDATES = 3;
+    private static final float MIN_SIMILARITY = 0.6f;
+
+    public static void resolve(Collection<MainMeal> meals) {
+        if (meals.isEmpty()) {
+            return;
+        }
+
+        // Look up all names at once
+        Map<String, Integer> idsByName = DatabaseManager.loadMealIDsByNames(
+                meals.stream().map(MainMeal::getName).collect(Collectors.toSet()));
+
+        List<MainMeal> unknownMeals = new LinkedList<>();
+        for (MainMeal meal : meals) {
+            Integer id = idsByName.get(meal.getName());
+            if (id != null) {
+                meal.setId(id);
+            } else {
+                unknownMeals.add(meal);
+            }
+        }
+
+        if (unknownMeals.isEmpty()) {
+            return;
+        }
+
+        // Look up all short aliases of unknown meals at once
+        Map<String, Set<Integer>> similarIDsByShortAlias = DatabaseManager.loadMealIDsByShortAliases(
+                unknownMeals.stream().map(MainMeal::getShortAlias).collect(Collectors.toSet()));
+
+        Resolution resolution = classify(unknownMeals, similarIDsByShortAlias,
+                name -> DatabaseManager.findSimilarMeals(name, MAX_CANDIDATES, MIN_SIMILARITY)
+                        .stream().map(Tuple::getA).collect(Collectors.toList()));
+
+        Map<String, Integer> newIDs = DatabaseManager.addMeals(
+                resolution.newMealsByName.values());
+        for (MainMeal meal : unknownMeals) {
+            Integer id = newIDs.get(meal.getName());
+            if (id != null) {
+                meal.setId(id);
+            }
+        }
+
+        for (Map.Entry<MainMeal, Set<Integer>> entry : resolution.similarIDsByMeal.entrySet()) {
+            MainMeal meal = entry.getKey();
+            Set<Integer> similarIDs = entry.getValue();
+            if (similarIDs.isEmpty()) {
+                Integer newID = newIDs.get(resolution.nameByShortAlias.get(meal.getShortAlias()));
+                if (newID == null) {
+                    LeckerSchmecker.getLogger().warning("Could not resolve meal '"
+                            + meal.getName() + "', as adding its similar meal failed");
+                    continue;
+                }
+                similarIDs = Set.of(newID);
+            }
+
+            LeckerSchmecker.getLogger()
+                    .info("Found similar meal for '" + meal.getName() + "', asking admins");
+            LeckerSchmeckerBot.getInstance().askAdmins(meal, similarIDs);
+        }
+    }
+
+    /**
+     * Splits the unknown meals into new meals and meals which are similar to known meals. Meals
+     * without similar meals are new. If several new meals share a short alias, only the first one
+     * is added, the others are similar to it and get an empty set of similar IDs.
+     */
+    static Resolution classify(Collection<MainMeal> unknownMeals,
+            Map<String, Set<Integer>> similarIDsByShortAlias,
+            Function<String, List<Integer>> findSimilarMeals) {
+        Resolution resolution = new Resolution();
+        for (MainMeal meal : unknownMeals) {
+            String shortAlias = meal.getShortAlias();
+
+            // Ranked by similarity, meals with the same short alias first
+            Set<Integer> similarIDs = new LinkedHashSet<>(
+                    similarIDsByShortAlias.getOrDefault(shortAlias, Set.of()));
+            similarIDs.addAll(findSimilarMeals.apply(meal.getName()));
+
+            // Only meals which are actually added claim their short alias
+            String claimedBy = resolution.nameByShortAlias.get(shortAlias);
+            if (!similarIDs.isEmpty()
+                    || (claimedBy != null && !claimedBy.equals(meal.getName()))) {
+                resolution.similarIDsByMeal.put(meal, similarIDs);
+            } else {
+                resolution.nameByShortAlias.put(shortAlias, meal.getName());
+                resolution.newMealsByName.putIfAbsent(meal.getName(), meal);
+            }
+        }
+        return resolution;
+    }
+
+    static class Resolution {
+
+        final Map<String, MainMeal> newMealsByName = new LinkedHashMap<>();
+        // Name of the new meal which is added for each short alias
+        final Map<String, String> nameByShortAlias = new HashMap<>();
+        final Map<MainMeal, Set<Integer>> similarIDsByMeal = new LinkedHashMap<>();
+    }
+}
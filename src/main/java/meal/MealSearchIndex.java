@@ -0,0 +1,183 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Full-text index over the German and English display names of all meals of an offer snapshot.
+ * It contains every suffix of every word, so a query word matches any word containing it, e.g.
+ * "schnitzel" matches "Schweineschnitzel". The index is built once per snapshot and never
+ * changes afterwards.
+ */
+public class MealSearchIndex {
+
+    public static final MealSearchIndex EMPTY = new MealSearchIndex(new String[0], new int[0],
+            List.of());
+
+    // Sorted suffixes and the hit each of them belongs to
+    private final String[] suffixes;
+    private final int[] hitIndices;
+    private final List<Hit> hits;
+
+    private MealSearchIndex(String[] suffixes, int[] hitIndices, List<Hit> hits) {
+        this.suffixes = suffixes;
+        this.hitIndices = hitIndices;
+        this.hits = hits;
+    }
+
+    public static MealSearchIndex build(Map<LocalDate, DailyOffer> dailyOffers) {
+        if (dailyOffers.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        List<String> suffixList = new ArrayList<>();
+        List<Integer> hitList = new ArrayList<>();
+        for (DailyOffer offer : dailyOffers.values()) {
+            List<Meal> meals = new ArrayList<>(offer.getMainMeals());
+            meals.addAll(offer.getSideMeals());
+
+            for (Meal meal : meals) {
+                int hitIndex = hits.size();
+                hits.add(new Hit(offer.getDate(), meal));
+
+                for (String displayName : List.of(meal.displayNameDE, meal.displayNameEN)) {
+                    for (String word : split(displayName)) {
+                        for (int i = 0; i < word.length(); i++) {
+                            suffixList.add(word.substring(i));
+                            hitList.add(hitIndex);
+                        }
+                    }
+                }
+            }
+        }
+
+        Integer[] order = new Integer[suffixList.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(suffixList::get));
+
+        String[] suffixes = new String[order.length];
+        int[] hitIndices = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            suffixes[i] = suffixList.get(order[i]);
+            hitIndices[i] = hitList.get(order[i]);
+        }
+        return new MealSearchIndex(suffixes, hitIndices, List.copyOf(hits));
+    }
+
+    /**
+     * Returns all meals containing every word of the query, ordered by date.
+     */
+    public List<Hit> search(String query) {
+        List<String> words = split(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        BitSet matches = null;
+        for (String word : words) {
+            BitSet wordMatches = new BitSet(hits.size());
+            for (int i = lowerBound(word); i < suffixes.length && suffixes[i].startsWith(word);
+                    i++) {
+                wordMatches.set(hitIndices[i]);
+            }
+
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.and(wordMatches);
+            }
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Hit> res = new ArrayList<>(matches.cardinality());
+        matches.stream().forEach(i -> res.add(hits.get(i)));
+        res.sort(Comparator.comparing(Hit::getDate));
+        return res;
+    }
+
+    private int lowerBound(String word) {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (suffixes[mid].compareTo(word) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Splits the text into lower case words of letters and digits.
+     */
+    static List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lowerCase.length(); i++) {
+            boolean letter = i < lowerCase.length()
+                    && Character.isLetterOrDigit(lowerCase.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(lowerCase.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    public int size() {
+        return hits.size();
+    }
+
+    public static class Hit {
+
+        private final LocalDate date;
+        private final Meal meal;
+
+        private Hit(LocalDate date, Meal meal) {
+            this.date = date;
+            this.meal = meal;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public Meal getMeal() {
+            return meal;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns the display name of a meal into the name which identifies it in the database, e.g.
+ * "Hähnchen mit Reis, Salat" into "hähnchen_reis_salat". The name is built in a single char
+ * buffer instead of a chain of replacements, but the result is exactly the same as the one of
+ * {@link #legacyNormalize(String)}.
+ */
+public class NameNormalizer {
+
+    // Separators which are turned into spaces
+    private static final String SEPARATORS = "|-:,./&\\";
+
+    // Replaced one after the other, as a later word may only appear after an earlier one was removed
+    private static final char[][] STOP_WORDS = {
+            " mit ".toCharArray(), " und ".toCharArray(), " oder ".toCharArray()};
+
+    // Locales which lower case some latin characters differently than Character.toLowerCase
+    private static final Set<String> SPECIAL_CASING_LANGUAGES = Set.of("tr", "az", "lt");
+
+    private static final char[] TRANSLATION = new char[256];
+
+    static {
+        for (char c = 0; c < TRANSLATION.length; c++) {
+            TRANSLATION[c] = SEPARATORS.indexOf(c) >= 0 ? ' ' : Character.toLowerCase(c);
+        }
+    }
+
+    public static String normalize(String displayName) {
+        if (!isLatin1(displayName)
+                || SPECIAL_CASING_LANGUAGES.contains(Locale.getDefault().getLanguage())) {
+            return legacyNormalize(displayName);
+        }
+
+        // "ß" is the only character which becomes longer
+        char[] buf = new char[displayName.length() * 2];
+        int len = 0;
+        for (int i = 0; i < displayName.length(); i++) {
+            char c = TRANSLATION[displayName.charAt(i)];
+            if (c == 'ß') {
+                buf[len++] = 's';
+                buf[len++] = 's';
+            } else {
+                buf[len++] = c;
+            }
+        }
+
+        for (char[] stopWord : STOP_WORDS) {
+            len = removeStopWord(buf, len, stopWord);
+        }
+
+        // Trim and join the words with underscores
+        int start = 0;
+        int end = len;
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+
+        int res = 0;
+        boolean space = false;
+        for (int i = start; i < end; i++) {
+            if (buf[i] != ' ') {
+                buf[res++] = buf[i];
+                space = false;
+            } else if (!space) {
+                buf[res++] = '_';
+                space = true;
+            }
+        }
+        return new String(buf, 0, res);
+    }
+
+    /**
+     * The original implementation, which is used for names the table does not cover.
+     */
+    public static String legacyNormalize(String displayName) {
+        return displayName.replace("|", " ")
+                .replace("-", " ")
+                .replace(":", " ")
+                .replace(",", " ")
+                .replace(".", " ")
+                .replace("&", " ")
+                .replace("/", " ")
+                .replace("\\", " ")
+                .toLowerCase()
+                .replace("ß", "ss")
+                .replace(" mit ", " ")
+                .replace(" und ", " ")
+                .replace(" oder ", " ")
+                .trim()
+                .replaceAll(" +", "_");
+    }
+
+    /**
+     * Replaces every occurrence of the stop word by a single space, scanning from left to right
+     * like {@link String#replace(CharSequence, CharSequence)}. The buffer is changed in place.
+     *
+     * @return the new length of the content
+     */
+    private static int removeStopWord(char[] buf, int len, char[] stopWord) {
+        int write = 0;
+        int read = 0;
+        while (read < len) {
+            if (buf[read] == ' ' && startsWith(buf, read, len, stopWord)) {
+                buf[write++] = ' ';
+                read += stopWord.length;
+            } else {
+                buf[write++] = buf[read++];
+            }
+        }
+        return write;
+    }
+
+    private static boolean startsWith(char[] buf, int offset, int len, char[] word) {
+        if (len - offset < word.length) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i++) {
+            if (buf[offset + i] != word[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,6 +16,8 @@
 
 package meal;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedList;
 import org.jsoup.nodes.Element;
 
@@ -30,6 +32,10 @@ public enum Nutrition {
     SPICY("scharf", "\uD83C\uDF36"),
     SWEET(null, "\uD83C\uDF6E");
 
+    // Nutritions which can be found on the offer pages
+    private static final Nutrition[] HTML_NUTRITIONS = Arrays.stream(values())
+            .filter(n -> n.htmlKey != null).toArray(Nutrition[]::new);
+
     private final String htmlKey;
     private final String symbol;
 
@@ -46,13 +52,25 @@ public enum Nutrition {
         return symbol;
     }
 
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
+    public static int toMask(Collection<Nutrition> nutritions) {
+        int mask = 0;
+        for (Nutrition nutrition : nutritions) {
+            mask |= nutrition.getMask();
+        }
+        return mask;
+    }
+
     public static LinkedList<Nutrition> searchNutrientsFor(Element e) {
         LinkedList<Nutrition> nutritions = new LinkedList<>();
 
         for (Element image : e.getElementsByClass("content-image")) {
             String html = image.attr("src").toLowerCase();
-            for (Nutrition nutrition : Nutrition.values()) {
-                if (nutrition.getHtmlKey() != null && html.contains(nutrition.getHtmlKey())) {
+            for (Nutrition nutrition : HTML_NUTRITIONS) {
+                if (html.contains(nutrition.getHtmlKey())) {
                     nutritions.add(nutrition);
                 }
             }
@@ -0,0 +1,104 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares freshly parsed offers of a canteen with its previous snapshot. Meals which did not
+ * change are replaced by their previous instances, so they keep their IDs. Only added and
+ * changed meals have to be resolved against the database, as well as unchanged meals which are
+ * still pending without an ID.
+ */
+public class OfferDiff {
+
+    private final Map<LocalDate, DailyOffer> dailyOffers = new HashMap<>();
+    private final List<MainMeal> addedMeals = new LinkedList<>();
+    private final List<MainMeal> changedMeals = new LinkedList<>();
+    private final List<MainMeal> pendingMeals = new LinkedList<>();
+    private int unchangedMeals;
+    private int removedMeals;
+
+    private OfferDiff() {
+    }
+
+    public static OfferDiff compare(Map<LocalDate, DailyOffer> parsed, OfferSnapshot previous) {
+        OfferDiff diff = new OfferDiff();
+
+        for (DailyOffer offer : parsed.values()) {
+            Map<String, MainMeal> previousMeals = new HashMap<>();
+            previous.getDailyOffer(offer.getDate()).ifPresent(
+                    p -> p.getMainMeals().forEach(m -> previousMeals.put(m.getName(), m)));
+
+            DailyOffer.Builder merged = new DailyOffer.Builder(offer.getDate());
+            for (MainMeal meal : offer.getMainMeals()) {
+                MainMeal previousMeal = previousMeals.remove(meal.getName());
+
+                if (previousMeal == null) {
+                    diff.addedMeals.add(meal);
+                    merged.addMeal(meal);
+                } else if (previousMeal.hasSameContent(meal)) {
+                    merged.addMeal(previousMeal);
+                    // Still waiting for the admins, or the question was lost on a restart or
+                    // a failed send. Asking again is cheap, as questions are deduplicated.
+                    if (previousMeal.getId() == null) {
+                        diff.pendingMeals.add(previousMeal);
+                    } else {
+                        diff.unchangedMeals++;
+                    }
+                } else {
+                    // The ID only depends on the name, so it can be taken over if already known
+                    if (previousMeal.getId() != null) {
+                        meal.setId(previousMeal.getId());
+                    }
+                    diff.changedMeals.add(meal);
+                    merged.addMeal(meal);
+                }
+            }
+            diff.removedMeals += previousMeals.size();
+
+            offer.getSideMeals().forEach(merged::addSideMeal);
+            diff.dailyOffers.put(offer.getDate(), merged.createDailyOffer());
+        }
+
+        return diff;
+    }
+
+    /**
+     * Returns all meals, which have to be resolved against the database.
+     */
+    public List<MainMeal> getUnresolvedMeals() {
+        List<MainMeal> res = new LinkedList<>(addedMeals);
+        changedMeals.stream().filter(m -> m.getId() == null).forEach(res::add);
+        res.addAll(pendingMeals);
+        return res;
+    }
+
+    public Map<LocalDate, DailyOffer> getDailyOffers() {
+        return dailyOffers;
+    }
+
+    public String summary() {
+        return addedMeals.size() + " added, " + changedMeals.size() + " changed, "
+                + removedMeals + " removed, " + unchangedMeals + " unchanged, "
+                + pendingMeals.size() + " pending";
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import config.Config;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import util.Triple;
+
+/**
+ * Downloads the offer pages of several canteens concurrently. Every page (german and english)
+ * is fetched as its own task on a bounded thread pool, so a full refresh takes about as long as
+ * the slowest page instead of the sum of all pages. Parsing happens on a single separate thread,
+ * one canteen at a time, as it touches the database and the bot. Callers only dispatch the
+ * refresh and get a future per canteen, so a slow page holds up neither them nor the other
+ * canteens. Canteens whose circuit breaker is open are skipped and keep serving their last
+ * offers.
+ */
+public class OfferFetcher {
+
+    protected static OfferFetcher instance;
+
+    private final ExecutorService executor;
+    private final ExecutorService parser;
+
+    private OfferFetcher(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "offer-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.parser = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "offer-parse");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static OfferFetcher getInstance() {
+        if (instance == null) {
+            instance = new OfferFetcher(Config.getFetchThreads());
+        }
+        return instance;
+    }
+
+    // Static function declarations //////////////////////////////////////////////////////////
+    /**
+     * Starts refreshing the offers of the given canteens and returns right away. Each future
+     * completes with the outcome for its canteen, once its pages are parsed.
+     */
+    public static Map<Canteen, CompletableFuture<Result>> refresh(Collection<Canteen> canteens) {
+        return getInstance()._refresh(canteens);
+    }
+
+    public static void shutdown() {
+        if (instance != null) {
+            instance._shutdown();
+        }
+    }
+    // ///////////////////////////////////////////////////////////////////////////////////////
+
+    // protected implementations /////////////////////////////////////////////////////////////
+    protected Map<Canteen, CompletableFuture<Result>> _refresh(Collection<Canteen> canteens) {
+        long start = System.nanoTime();
+
+        // Start all downloads before any page is parsed
+        Map<Canteen, CompletableFuture<Result>> refreshes = new LinkedHashMap<>();
+        int fetched = 0;
+        for (Canteen canteen : canteens) {
+            if (!canteen.getCircuitBreaker().allowRequest(Instant.now())) {
+                LeckerSchmecker.getLogger().info("Skipping canteen '" + canteen.getDisplayName()
+                        + "', serving offers from " + canteen.getFreshnessLag(Instant.now())
+                        .toMinutes() + " min ago");
+                refreshes.put(canteen, CompletableFuture.completedFuture(Result.SKIPPED));
+                continue;
+            }
+            CompletableFuture<OfferPage> pageDE = download(canteen, false);
+            CompletableFuture<OfferPage> pageEN = download(canteen, true);
+            // Remember when both pages were available to report the wall time per canteen
+            refreshes.put(canteen, pageDE.thenCombine(pageEN,
+                            (de, en) -> new Triple<>(de, en, System.nanoTime()))
+                    .handleAsync((pages, error) -> update(canteen, pages, error, start), parser));
+            fetched++;
+        }
+
+        int numberOfCanteens = fetched;
+        CompletableFuture.allOf(refreshes.values().toArray(new CompletableFuture[0]))
+                .whenComplete((v, e) -> LeckerSchmecker.getLogger().info("Fetched offers of "
+                        + numberOfCanteens + " canteens in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                        + "ms (page cache: " + OfferPageCache.getHits() + " hits, "
+                        + OfferPageCache.getMisses() + " misses)"));
+        return refreshes;
+    }
+
+    protected void _shutdown() {
+        executor.shutdownNow();
+        parser.shutdownNow();
+    }
+    // ///////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Parses the downloaded pages of the canteen, runs on the parser thread.
+     */
+    private Result update(Canteen canteen, Triple<OfferPage, OfferPage, Long> pages,
+            Throwable error, long start) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            LeckerSchmecker.getLogger().warning("Could not fetch offers for canteen '"
+                    + canteen.getDisplayName() + "': " + cause);
+            canteen.getCircuitBreaker().recordFailure(Instant.now());
+            return Result.FAILED;
+        }
+
+        try {
+            long downloadTime = TimeUnit.NANOSECONDS.toMillis(pages.getC() - start);
+
+            long parseStart = System.nanoTime();
+            long version = canteen.getSnapshot().getVersion();
+            boolean parsed = canteen.updateDailyOffers(pages.getA(), pages.getB());
+            long parseTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - parseStart);
+            canteen.getCircuitBreaker().recordSuccess();
+            canteen.markRefreshed(Instant.now());
+
+            if (parsed) {
+                LeckerSchmecker.getLogger().info("Fetched " + canteen.getNumberOfMeals()
+                        + " meals for canteen '" + canteen.getDisplayName() + "' (download: "
+                        + downloadTime + "ms, parse: " + parseTime + "ms)");
+            } else {
+                LeckerSchmecker.getLogger().info("Offers of canteen '"
+                        + canteen.getDisplayName() + "' did not change (download: "
+                        + downloadTime + "ms)");
+            }
+            return canteen.getSnapshot().getVersion() != version
+                    ? Result.CHANGED : Result.UNCHANGED;
+        } catch (RuntimeException e) {
+            LeckerSchmecker.getLogger().warning("Could not parse offers for canteen '"
+                    + canteen.getDisplayName() + "'");
+            e.printStackTrace();
+            canteen.getCircuitBreaker().recordFailure(Instant.now());
+            return Result.FAILED;
+        }
+    }
+
+    private CompletableFuture<OfferPage> download(Canteen canteen, boolean english) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return canteen.loadPage(english);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Outcome of refreshing the offers of a canteen.
+     */
+    public enum Result {
+        // The offers of the canteen changed
+        CHANGED,
+        // The pages were fetched, but the offers did not change
+        UNCHANGED,
+        // The pages could not be fetched or parsed
+        FAILED,
+        // The circuit breaker of the canteen is open
+        SKIPPED
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * Raw content of a downloaded offer page, together with a hash of the content to detect pages
+ * which did not change.
+ */
+public class OfferPage {
+
+    private final String url;
+    private final byte[] body;
+    private final byte[] hash;
+
+    public OfferPage(String url, byte[] body, byte[] hash) {
+        this.url = url;
+        this.body = body;
+        this.hash = hash;
+    }
+
+    /**
+     * Creates a page from the given content and hashes it.
+     */
+    public static OfferPage of(String url, byte[] body) {
+        return new OfferPage(url, body, hash(body));
+    }
+
+    public Document parse() throws IOException {
+        // Let jsoup detect the charset from the BOM or the meta tags of the page
+        return Jsoup.parse(new ByteArrayInputStream(body), null, url);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    public boolean hasSameContent(OfferPage other) {
+        return other != null && Arrays.equals(this.hash, other.hash);
+    }
+
+    static byte[] hash(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            // Every java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import config.Config;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import org.jsoup.HttpStatusException;
+
+/**
+ * Keeps the validators (ETag, Last-Modified and a hash of the content) of every downloaded offer
+ * page. Requests are sent as conditional requests, so the server can answer with "304 Not
+ * Modified". If the server does not support this, the content hash is used to detect unchanged
+ * pages instead. All pages are downloaded by one shared client, which keeps connections alive,
+ * prefers HTTP/2 and accepts gzip compressed pages.
+ */
+public class OfferPageCache {
+
+    protected static OfferPageCache instance;
+
+    private final HttpClient client;
+    private final Map<String, Entry> entriesByUrl = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private OfferPageCache() {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(Config.getConnectTimeout()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    private static synchronized OfferPageCache getInstance() {
+        if (instance == null) {
+            instance = new OfferPageCache();
+        }
+        return instance;
+    }
+
+    // Static function declarations //////////////////////////////////////////////////////////
+    public static OfferPage load(String url) throws IOException {
+        return getInstance()._load(url);
+    }
+
+    public static long getHits() {
+        return getInstance().hits.get();
+    }
+
+    public static long getMisses() {
+        return getInstance().misses.get();
+    }
+    // ///////////////////////////////////////////////////////////////////////////////////////
+
+    // protected implementations /////////////////////////////////////////////////////////////
+    protected OfferPage _load(String url) throws IOException {
+        Entry cached = entriesByUrl.get(url);
+
+        // Brotli is not supported by the JDK, gzip already shrinks the pages to a fraction
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(Config.getFetchTimeout()))
+                .header("Accept-Encoding", "gzip");
+        if (cached != null && cached.eTag != null) {
+            request.header("If-None-Match", cached.eTag);
+        }
+        if (cached != null && cached.lastModified != null) {
+            request.header("If-Modified-Since", cached.lastModified);
+        }
+
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        }
+
+        if (cached != null && response.statusCode() == 304) {
+            hits.incrementAndGet();
+            return new OfferPage(url, cached.body, cached.hash);
+        }
+        if (response.statusCode() != 200) {
+            throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+        }
+
+        byte[] body = decode(response);
+        byte[] hash = OfferPage.hash(body);
+        entriesByUrl.put(url, new Entry(header(response, "ETag"),
+                header(response, "Last-Modified"), hash, body));
+
+        OfferPage page = new OfferPage(url, body, hash);
+        if (cached != null && Arrays.equals(cached.hash, hash)) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            if (Config.getRecordDir() != null) {
+                RecordedPages.record(Config.getRecordDir(), page);
+            }
+        }
+        return page;
+    }
+    // ///////////////////////////////////////////////////////////////////////////////////////
+
+    private static byte[] decode(HttpResponse<byte[]> response) throws IOException {
+        Optional<String> encoding = response.headers().firstValue("Content-Encoding");
+        if (encoding.isEmpty() || encoding.get().equalsIgnoreCase("identity")) {
+            return response.body();
+        }
+        if (!encoding.get().equalsIgnoreCase("gzip")) {
+            throw new IOException("Unsupported content encoding " + encoding.get() + " of "
+                    + response.uri());
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String header(HttpResponse<?> response, String name) {
+        return response.headers().firstValue(name).orElse(null);
+    }
+
+    private static class Entry {
+
+        private final String eTag;
+        private final String lastModified;
+        private final byte[] hash;
+        private final byte[] body;
+
+        private Entry(String eTag, String lastModified, byte[] hash, byte[] body) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable view of all offers of a canteen at one point in time. A new snapshot is built
+ * completely before it is published, so readers never see a partially updated week.
+ */
+public class OfferSnapshot {
+
+    public static final OfferSnapshot EMPTY = new OfferSnapshot(Map.of(), 0, Instant.EPOCH, false);
+
+    private final Map<LocalDate, DailyOffer> dailyOffers;
+    private final long version;
+    private final Instant createdAt;
+    private final boolean restored;
+    // Built along with the snapshot, so only the canteen whose offers changed is indexed again
+    private final MealSearchIndex searchIndex;
+
+    private OfferSnapshot(Map<LocalDate, DailyOffer> dailyOffers, long version, Instant createdAt,
+            boolean restored) {
+        this.dailyOffers = dailyOffers;
+        this.version = version;
+        this.createdAt = createdAt;
+        this.restored = restored;
+        this.searchIndex = MealSearchIndex.build(dailyOffers);
+    }
+
+    /**
+     * Creates the snapshot following this one, containing the given offers.
+     */
+    public OfferSnapshot next(Map<LocalDate, DailyOffer> dailyOffers) {
+        return new OfferSnapshot(Map.copyOf(dailyOffers), this.version + 1, Instant.now(), false);
+    }
+
+    /**
+     * Creates a snapshot from offers, which were stored at the given time.
+     */
+    public static OfferSnapshot restore(Map<LocalDate, DailyOffer> dailyOffers, Instant createdAt) {
+        return new OfferSnapshot(Map.copyOf(dailyOffers), 1, createdAt, true);
+    }
+
+    public Map<LocalDate, DailyOffer> getDailyOffers() {
+        return dailyOffers;
+    }
+
+    public Optional<DailyOffer> getDailyOffer(LocalDate date) {
+        return Optional.ofNullable(this.dailyOffers.get(date));
+    }
+
+    public int getNumberOfMeals() {
+        return this.dailyOffers.values().stream().mapToInt(d -> d.getMainMeals().size()).sum();
+    }
+
+    public MealSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns true, if the snapshot was stored by an earlier run of the bot.
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+}
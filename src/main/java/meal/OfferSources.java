@@ -0,0 +1,45 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import config.Config;
+
+/**
+ * Creates the offer source selected in the config: "http" (default) downloads the pages from
+ * "offers.source.base_url", "directory" reads them from "offers.source.dir", e.g. for load tests
+ * without network access.
+ */
+public class OfferSources {
+
+    protected static OfferSource instance;
+
+    public static synchronized OfferSource get() {
+        if (instance == null) {
+            instance = create(Config.getOfferSource());
+            LeckerSchmecker.getLogger().info("Loading offers from " + instance);
+        }
+        return instance;
+    }
+
+    private static OfferSource create(String name) {
+        return switch (name) {
+            case "http" -> new HttpOfferSource(Config.getOfferBaseUrl());
+            case "directory" -> new DirectoryOfferSource(Config.getOfferDir());
+            default -> throw new IllegalArgumentException("Unknown offer source '" + name + "'");
+        };
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores the offer snapshots of all canteens, including the resolved meal IDs, in a compact
+ * binary file. The file is loaded on startup, so the bot can serve menus before the first
+ * refresh is done.
+ */
+public class OfferStore {
+
+    // Increase whenever the format changes, older files are ignored then
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x4C534F46; // "LSOF"
+
+    public static void save(Path file, Collection<Canteen> canteens) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(canteens.size());
+            for (Canteen canteen : canteens) {
+                writeCanteen(out, canteen);
+            }
+        }
+
+        // Replace the old file at once, so a crash never leaves a half written file behind
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores the stored snapshots of all known canteens. Days before today are dropped.
+     *
+     * @return the number of restored canteens
+     */
+    public static int load(Path file, LocalDate today) throws IOException {
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                LeckerSchmecker.getLogger().warning("Ignoring offer snapshot " + file
+                        + " of an unknown format");
+                return 0;
+            }
+
+            int canteens = in.readInt();
+            for (int i = 0; i < canteens; i++) {
+                String urlName = in.readUTF();
+                Instant createdAt = Instant.ofEpochMilli(in.readLong());
+                Map<LocalDate, DailyOffer> dailyOffers = readDailyOffers(in, today);
+
+                // Canteens which are no longer known are skipped
+                Optional<Canteen> canteen = Canteen.getByURLName(urlName);
+                if (canteen.isPresent() && canteen.get()
+                        .restoreSnapshot(OfferSnapshot.restore(dailyOffers, createdAt))) {
+                    restored++;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        return restored;
+    }
+
+    private static void writeCanteen(DataOutputStream out, Canteen canteen) throws IOException {
+        OfferSnapshot snapshot = canteen.getSnapshot();
+        out.writeUTF(canteen.getUrlName());
+        out.writeLong(snapshot.getCreatedAt().toEpochMilli());
+
+        out.writeInt(snapshot.getDailyOffers().size());
+        for (DailyOffer offer : snapshot.getDailyOffers().values()) {
+            out.writeLong(offer.getDate().toEpochDay());
+
+            out.writeInt(offer.getMainMeals().size());
+            for (MainMeal meal : offer.getMainMeals()) {
+                out.writeUTF(meal.getName());
+                out.writeUTF(meal.displayNameDE);
+                out.writeUTF(meal.displayNameEN);
+                out.writeUTF(meal.getType().name());
+                out.writeFloat(meal.getPrice());
+                out.writeInt(meal.getNutritions().size());
+                for (Nutrition nutrition : meal.getNutritions()) {
+                    out.writeUTF(nutrition.name());
+                }
+                // Meals without an ID are still waiting for the admins
+                out.writeInt(meal.getId() == null ? -1 : meal.getId());
+            }
+
+            out.writeInt(offer.getSideMeals().size());
+            for (SideMeal meal : offer.getSideMeals()) {
+                out.writeUTF(meal.getName());
+                out.writeUTF(meal.displayNameDE);
+                out.writeUTF(meal.displayNameEN);
+                out.writeUTF(meal.getType() == null ? "" : meal.getType().name());
+            }
+        }
+    }
+
+    private static Map<LocalDate, DailyOffer> readDailyOffers(DataInputStream in, LocalDate today)
+            throws IOException {
+        Map<LocalDate, DailyOffer> dailyOffers = new HashMap<>();
+
+        int days = in.readInt();
+        for (int i = 0; i < days; i++) {
+            LocalDate date = LocalDate.ofEpochDay(in.readLong());
+            DailyOffer.Builder offer = new DailyOffer.Builder(date);
+
+            int mainMeals = in.readInt();
+            for (int j = 0; j < mainMeals; j++) {
+                MainMeal.Builder builder = new MainMeal.Builder()
+                        .setName(in.readUTF())
+                        .setDisplayNameDE(in.readUTF())
+                        .setDisplayNameEN(in.readUTF())
+                        .setType(MainMeal.Type.valueOf(in.readUTF()))
+                        .setPrice(in.readFloat());
+                int nutritionCount = in.readInt();
+                List<Nutrition> nutritions = new ArrayList<>(nutritionCount);
+                for (int k = 0; k < nutritionCount; k++) {
+                    nutritions.add(Nutrition.valueOf(in.readUTF()));
+                }
+                int id = in.readInt();
+                offer.addMeal(builder.setNutritions(nutritions)
+                        .setId(id == -1 ? null : id)
+                        .createMainMeal());
+            }
+
+            int sideMeals = in.readInt();
+            for (int j = 0; j < sideMeals; j++) {
+                String name = in.readUTF();
+                String displayNameDE = in.readUTF();
+                String displayNameEN = in.readUTF();
+                String type = in.readUTF();
+                offer.addSideMeal(new SideMeal(name, displayNameDE, displayNameEN,
+                        type.isEmpty() ? null : SideMeal.Type.valueOf(type)));
+            }
+
+            if (!date.isBefore(today)) {
+                dailyOffers.put(date, offer.createDailyOffer());
+            }
+        }
+        return dailyOffers;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Stores downloaded offer pages on disk and reads them back, so the parsers can be run against
+ * real pages without the Studierendenwerk site. A page is stored under the file name of its URL,
+ * e.g. "academica-w.html", see {@link Canteen#getPageName(boolean)}.
+ */
+public class RecordedPages {
+
+    public static Path getPath(String dir, String url) {
+        return Path.of(dir, url.substring(url.lastIndexOf('/') + 1));
+    }
+
+    public static OfferPage load(String dir, String url) throws IOException {
+        Path path = getPath(dir, url);
+        return OfferPage.of(path.toUri().toString(), Files.readAllBytes(path));
+    }
+
+    public static void record(String dir, OfferPage page) {
+        Path path = getPath(dir, page.getUrl());
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(path, page.getBody());
+            LeckerSchmecker.getLogger().info("Recorded offer page " + path);
+        } catch (IOException e) {
+            LeckerSchmecker.getLogger().warning("Could not record offer page " + path);
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import util.DateUtils;
+
+/**
+ * Decides when the offers of a canteen are fetched next. Canteens are polled often shortly
+ * before and during their opening hours on weekdays and rarely otherwise. Every refresh which
+ * did not change the offers doubles the interval up to a limit. A random jitter keeps the
+ * canteens from being fetched all at once.
+ */
+public class RefreshPolicy {
+
+    // Polling starts this long before a canteen opens, as changes are most likely then
+    private static final Duration LEAD_TIME = Duration.ofMinutes(90);
+
+    private static final Duration ACTIVE_INTERVAL = Duration.ofMinutes(15);
+    private static final Duration MAX_ACTIVE_INTERVAL = Duration.ofMinutes(60);
+    private static final Duration IDLE_INTERVAL = Duration.ofHours(4);
+    private static final Duration MAX_IDLE_INTERVAL = Duration.ofHours(8);
+    private static final int MAX_BACKOFF_STEPS = 4;
+
+    private static final double JITTER = 0.1;
+    private static final Duration MAX_WINDOW_JITTER = Duration.ofMinutes(3);
+
+    private static final Map<Canteen, Integer> unchangedRefreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the time of the next refresh of the given canteen.
+     *
+     * @param result the outcome of the last refresh of the canteen
+     */
+    public static LocalDateTime nextRefresh(Canteen canteen, OfferFetcher.Result result,
+            LocalDateTime now) {
+        // Failures are backed off by the circuit breaker, they do not tell how often the page
+        // changes
+        int unchanged = switch (result) {
+            case CHANGED -> 0;
+            case UNCHANGED -> unchangedRefreshes.getOrDefault(canteen, 0) + 1;
+            case FAILED, SKIPPED -> unchangedRefreshes.getOrDefault(canteen, 0);
+        };
+        unchangedRefreshes.put(canteen, unchanged);
+
+        boolean active = isActive(canteen, now);
+        Duration interval = (active ? ACTIVE_INTERVAL : IDLE_INTERVAL)
+                .multipliedBy(1L << Math.min(unchanged, MAX_BACKOFF_STEPS));
+        Duration maxInterval = active ? MAX_ACTIVE_INTERVAL : MAX_IDLE_INTERVAL;
+        if (interval.compareTo(maxInterval) > 0) {
+            interval = maxInterval;
+        }
+
+        double jitter = ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        LocalDateTime next = now.plus(interval.plusMillis((long) (interval.toMillis() * jitter)));
+
+        // Never sleep past the start of the next opening window
+        LocalDateTime windowStart = nextWindowStart(canteen, now);
+        if (!active && next.isAfter(windowStart)) {
+            next = windowStart.plusSeconds(
+                    ThreadLocalRandom.current().nextLong(MAX_WINDOW_JITTER.toSeconds()));
+        }
+        return next;
+    }
+
+    /**
+     * Returns true, if the given time lies shortly before or within the opening hours of the
+     * canteen on a weekday.
+     */
+    public static boolean isActive(Canteen canteen, LocalDateTime time) {
+        if (DateUtils.isWeekend(time.toLocalDate())) {
+            return false;
+        }
+        LocalDateTime start = time.toLocalDate().atTime(canteen.getOpeningTime()).minus(LEAD_TIME);
+        LocalDateTime end = time.toLocalDate().atTime(canteen.getClosingTime());
+        return !time.isBefore(start) && time.isBefore(end);
+    }
+
+    private static LocalDateTime nextWindowStart(Canteen canteen, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        LocalDateTime start = today.atTime(canteen.getOpeningTime()).minus(LEAD_TIME);
+        if (!DateUtils.isWeekend(today) && now.isBefore(start)) {
+            return start;
+        }
+
+        // On weekends, zero days already skip to the next monday
+        LocalDate nextDay = DateUtils.addDaysSkippingWeekends(today,
+                DateUtils.isWeekend(today) ? 0 : 1);
+        return nextDay.atTime(canteen.getOpeningTime()).minus(LEAD_TIME);
+    }
+}
@@ -16,10 +16,12 @@
 
 package meal;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
 
 public class SideMeal extends Meal {
 
@@ -48,22 +50,10 @@ public class SideMeal extends Meal {
         }
         Type finalType = type;
 
-        String htmlDE = elementDE.getElementsByClass("menue-item extra menue-desc").get(0).html();
-        String htmlEN = elementEN.getElementsByClass("menue-item extra menue-desc").get(0).html();
-
-        List<String> displayNameDE =
-                Arrays.stream(htmlDE.replace("<span class=\"menue-nutr\">+</span>", "")
-                .replace("<br>", "")
-                .replaceAll("<sup>.*?</sup>", "")
-                .replace("|", "")
-                .split("<span class=\"seperator\">oder</span>")).map(String::trim).toList();
-
-        List<String> displayNameEN =
-                Arrays.stream(htmlEN.replace("<span class=\"menue-nutr\">+</span>", "")
-                .replace("<br>", "")
-                .replaceAll("<sup>.*?</sup>", "")
-                .replace("|", "")
-                .split("<span class=\"seperator\">or</span>")).map(String::trim).toList();
+        List<String> displayNameDE = parseDisplayNames(
+                elementDE.getElementsByClass("menue-item extra menue-desc").get(0));
+        List<String> displayNameEN = parseDisplayNames(
+                elementEN.getElementsByClass("menue-item extra menue-desc").get(0));
 
         List<SideMeal> res = new LinkedList<>();
         for (int i = 0; i < displayNameDE.size(); i++) {
@@ -73,6 +63,51 @@ public class SideMeal extends Meal {
         return res;
     }
 
+    /**
+     * Collects the names of the side meals in the given description, which are separated by
+     * "oder" spans. Footnotes, line breaks and the leading "+" are skipped.
+     */
+    static List<String> parseDisplayNames(Element desc) {
+        List<String> names = new ArrayList<>(2);
+        StringBuilder sb = new StringBuilder();
+        int separators = appendDisplayNames(desc, sb, names);
+        names.add(sb.toString());
+
+        // Like String.split on the serialized HTML, which has no trailing whitespace, drop
+        // blank names at the end
+        names.replaceAll(String::trim);
+        if (separators > 0) {
+            while (!names.isEmpty() && names.get(names.size() - 1).isEmpty()) {
+                names.remove(names.size() - 1);
+            }
+        }
+        return names;
+    }
+
+    private static int appendDisplayNames(Element element, StringBuilder sb, List<String> names) {
+        int separators = 0;
+        for (Node node : element.childNodes()) {
+            if (node instanceof TextNode textNode) {
+                String text = textNode.text();
+                for (int i = 0; i < text.length(); i++) {
+                    if (text.charAt(i) != '|') {
+                        sb.append(text.charAt(i));
+                    }
+                }
+            } else if (node instanceof Element child) {
+                if (child.hasClass("seperator")) {
+                    names.add(sb.toString());
+                    sb.setLength(0);
+                    separators++;
+                } else if (!child.hasClass("menue-nutr") && !child.normalName().equals("sup")
+                        && !child.normalName().equals("br")) {
+                    separators += appendDisplayNames(child, sb, names);
+                }
+            }
+        }
+        return separators;
+    }
+
     @Override
     public String toString() {
         return "SideMeal{" +
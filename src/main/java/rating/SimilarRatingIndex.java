@@ -0,0 +1,85 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package rating;
+
+import java.util.HashMap;
+import java.util.Map;
+import meal.MainMeal;
+
+/**
+ * The latest ratings of a single user by the short alias of the rated meals. Meals the user did
+ * not rate yet get the average rating of the similar meals, i.e. the meals with the same short
+ * alias. The index holds at most a fixed number of ratings. Users with more ratings are not
+ * indexed, the index is marked incomplete instead and has to be bypassed.
+ */
+public class SimilarRatingIndex {
+
+    // Latest rating by meal ID by short alias
+    private final Map<String, Map<Integer, Integer>> ratingsByShortAlias = new HashMap<>();
+    private final int maxSize;
+    private int size;
+    private boolean complete = true;
+
+    public SimilarRatingIndex(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds the latest rating of a meal with the given short alias.
+     */
+    public synchronized void put(String shortAlias, int mealID, int rating) {
+        if (!complete) {
+            return;
+        }
+        if (size >= maxSize) {
+            complete = false;
+            ratingsByShortAlias.clear();
+            size = 0;
+            return;
+        }
+
+        if (ratingsByShortAlias.computeIfAbsent(shortAlias, k -> new HashMap<>())
+                .put(mealID, rating) == null) {
+            size++;
+        }
+    }
+
+    /**
+     * Returns the average latest rating of the meals similar to the given one, or null if the
+     * user did not rate any of them.
+     */
+    public synchronized RatingInfo getEstimatedRating(MainMeal meal) {
+        Map<Integer, Integer> ratings = ratingsByShortAlias.get(meal.getShortAlias());
+        if (ratings == null || ratings.isEmpty()) {
+            return null;
+        }
+
+        int sum = 0;
+        for (int rating : ratings.values()) {
+            sum += rating;
+        }
+        return new RatingInfo(meal, (float) sum / ratings.size(), ratings.size(), true);
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
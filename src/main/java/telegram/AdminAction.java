@@ -16,17 +16,24 @@
 
 package telegram;
 
+import database.DatabaseManager;
+import database.MealIdCache;
+import database.RatingCache;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import meal.Canteen;
+import meal.OfferPageCache;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.polls.Poll;
 import org.telegram.telegrambots.meta.api.objects.polls.PollOption;
+import util.DateUtils;
 
 public abstract class AdminAction implements BotAction {
 
@@ -93,6 +100,48 @@ public abstract class AdminAction implements BotAction {
         }
     };
 
+    public static final AdminAction STATISTICS = new AdminAction("Statistics",
+            List.of("/stats", "stats")) {
+
+        @Override
+        public void init(ChatContext context, SendMessage passthroughMessage, Update update) {
+            MealIdCache mealIdCache = DatabaseManager.getMealIdCache();
+            RatingCache ratingCache = DatabaseManager.getRatingCache();
+            StringBuilder sb = new StringBuilder();
+            sb.append("Offer page cache: ").append(OfferPageCache.getHits()).append(" hits, ")
+                    .append(OfferPageCache.getMisses()).append(" misses\n")
+                    .append("Meal ID cache: ").append(mealIdCache.size()).append(" entries, ")
+                    .append(mealIdCache.getHits()).append(" hits, ")
+                    .append(mealIdCache.getMisses()).append(" misses\n")
+                    .append("Rating cache: ").append(ratingCache.size()).append(" entries, ")
+                    .append(ratingCache.getHits()).append(" hits, ")
+                    .append(ratingCache.getMisses()).append(" misses\n")
+                    .append("Similar rating indices: ")
+                    .append(ratingCache.getSimilarRatingIndexCount()).append(" users\n")
+                    .append("Admin review queue: ")
+                    .append(LeckerSchmeckerBot.getInstance().getAdminReviewQueue().size())
+                    .append(" pending\n");
+
+            // Time since each canteen was last refreshed successfully
+            Instant now = Instant.now();
+            for (Canteen canteen : Canteen.TYPES) {
+                sb.append("\n").append(canteen.getDisplayName()).append(": ")
+                        .append(canteen.getLastRefresh().equals(Instant.EPOCH) ? "never refreshed"
+                                : DateUtils.formatDuration(canteen.getFreshnessLag(now)) + " ago")
+                        .append(", ").append(canteen.getCircuitBreaker().getState());
+                if (canteen.isStale()) {
+                    sb.append(", stale");
+                }
+            }
+            context.sendMessage(sb.toString());
+        }
+
+        @Override
+        public void onUpdate(ChatContext context, Update update) {
+
+        }
+    };
+
     public static void processUpdate(ChatContext context, Update update) {
         if (update.hasMessage()) {
 
@@ -145,7 +194,8 @@ public abstract class AdminAction implements BotAction {
 
     }
 
-    public static final AdminAction[] VALUES = {GENERATE_TIMED_ACCESS_CODE, GENERATE_ACCESS_CODE, BROADCAST};
+    public static final AdminAction[] VALUES = {GENERATE_TIMED_ACCESS_CODE, GENERATE_ACCESS_CODE, BROADCAST,
+            STATISTICS};
 
     public static AdminAction[] values() {
         return VALUES;
@@ -0,0 +1,101 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package telegram;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import meal.LeckerSchmecker;
+import meal.MainMeal;
+import util.MultiKeyMap;
+
+/**
+ * Asks the admins about meals which are similar to known meals. Meals are queued by the offer
+ * refresh and sent by a worker thread of their own, so a refresh never waits for Telegram.
+ * Meals with the same name share one question, whether it was sent already or not.
+ */
+public class AdminReviewQueue {
+
+    private final LeckerSchmeckerBot bot;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "admin-review");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Questions which are queued, but not sent yet
+    private final Map<String, MealPollInfo> pendingByMealName = new HashMap<>();
+    private final MultiKeyMap<String, String, MealPollInfo> mealPollInfoByMealNameOrPollId =
+            new MultiKeyMap<>();
+
+    public AdminReviewQueue(LeckerSchmeckerBot bot) {
+        this.bot = bot;
+    }
+
+    public synchronized void enqueue(MainMeal meal, Set<Integer> similarMeals) {
+        MealPollInfo info = mealPollInfoByMealNameOrPollId.get1(meal.getName());
+        if (info == null) {
+            info = pendingByMealName.get(meal.getName());
+        }
+        if (info != null) {
+            info.addMeal(meal);
+            return;
+        }
+
+        MealPollInfo newInfo = new MealPollInfo();
+        newInfo.addMeal(meal);
+        pendingByMealName.put(meal.getName(), newInfo);
+
+        // Keep the order, the most similar meals come first
+        List<Integer> similarMealsCopy = List.copyOf(similarMeals);
+        worker.execute(() -> send(meal, similarMealsCopy, newInfo));
+    }
+
+    public synchronized MealPollInfo getMealPollInfo(String pollID) {
+        return mealPollInfoByMealNameOrPollId.get2(pollID);
+    }
+
+    public synchronized void removeMealPollInfo(String pollID) {
+        String mealName = mealPollInfoByMealNameOrPollId.get2(pollID).getMealName();
+        mealPollInfoByMealNameOrPollId.remove(mealName, pollID);
+    }
+
+    public synchronized int size() {
+        return pendingByMealName.size();
+    }
+
+    private void send(MainMeal meal, List<Integer> similarMeals, MealPollInfo info) {
+        try {
+            String pollID = bot.sendMealPoll(meal, similarMeals);
+            synchronized (this) {
+                pendingByMealName.remove(meal.getName());
+                mealPollInfoByMealNameOrPollId.put(meal.getName(), pollID, info);
+            }
+        } catch (RuntimeException e) {
+            // The meal is queued again on its next refresh
+            synchronized (this) {
+                pendingByMealName.remove(meal.getName());
+            }
+            LeckerSchmecker.getLogger().warning("Could not ask admins about meal '"
+                    + meal.getName() + "'");
+            e.printStackTrace();
+        }
+    }
+}
@@ -226,9 +226,7 @@ public abstract class CallableAction implements BotAction {
         public void onUpdate(ChatContext context, Update update) {
             Message msg = update.getMessage();
             Arrays.stream(CallableAction.values())
-                    .filter(a -> a.getCmds().contains(msg.getText().toLowerCase())
-                            || a.getDisplayName(context.getLocale())
-                            .equalsIgnoreCase(msg.getText()))
+                    .filter(a -> a.matches(msg.getText(), context.getLocale()))
                     .findFirst()
                     .ifPresent(action -> action.init(context, null, update));
         }
@@ -470,10 +468,64 @@ public abstract class CallableAction implements BotAction {
         }
     };
 
+    public static final CallableAction SEARCH = new CallableAction("callableaction_search",
+            List.of("/search", "/suche", "suche", "search", "buscar")) {
+        @Override
+        public boolean matches(String text, Locale locale) {
+            return super.matches(text, locale) || getQuery(text) != null;
+        }
+
+        @Override
+        public void init(ChatContext context, SendMessage passthroughMessage, Update update) {
+            context.setCurrentAction(this);
+
+            // The query may be given along with the command, e.g. "/search schnitzel"
+            String query = update.hasMessage() ? getQuery(update.getMessage().getText()) : null;
+            if (query != null) {
+                sendResults(context, query, update);
+                return;
+            }
+
+            SendMessage message = new SendMessage();
+            message.setText(context.getLocalizedString("search_query_prompt"));
+            message.setReplyMarkup(
+                    BotAction.createKeyboardMarkupWithMenu(1, context.getLocale()));
+            context.sendMessage(message);
+        }
+
+        @Override
+        public void onUpdate(ChatContext context, Update update) {
+            if (!update.hasMessage()) {
+                return;
+            }
+            sendResults(context, update.getMessage().getText(), update);
+        }
+
+        private void sendResults(ChatContext context, String query, Update update) {
+            SendMessage message = new SendMessage();
+            message.enableMarkdown(true);
+            message.setText(context.getBot().getSearchText(query, context));
+            MAIN_MENU.init(context, message, update);
+        }
+
+        /**
+         * Returns the query following one of the commands, or null if there is none.
+         */
+        private String getQuery(String text) {
+            String[] parts = text.trim().split("\\s+", 2);
+            // Commands in groups are addressed to the bot, e.g. "/search@bot schnitzel"
+            String cmd = parts[0].toLowerCase().replaceFirst("^(/[^@]+)@.*$", "$1");
+            if (parts.length < 2 || !getCmds().contains(cmd)) {
+                return null;
+            }
+            return parts[1];
+        }
+    };
+
     public static final CallableAction[] VALUES = {LIST_MEALS, RATING, MAIN_MENU, TUTORIAL,
-            SETTINGS_MENU};
-    public static final CallableAction[] MAIN_MENU_ACTIONS = {LIST_MEALS, RATING, SETTINGS_MENU,
-            TUTORIAL};
+            SETTINGS_MENU, SEARCH};
+    public static final CallableAction[] MAIN_MENU_ACTIONS = {LIST_MEALS, RATING, SEARCH,
+            SETTINGS_MENU, TUTORIAL};
 
     public static CallableAction[] values() {
         return VALUES;
@@ -495,4 +547,11 @@ public abstract class CallableAction implements BotAction {
         return cmds;
     }
 
+    /**
+     * Returns true, if the user requested this action with the given message text.
+     */
+    public boolean matches(String text, Locale locale) {
+        return cmds.contains(text.toLowerCase()) || getDisplayName(locale).equalsIgnoreCase(text);
+    }
+
 }
@@ -171,9 +171,8 @@ public abstract class InternalAction implements BotAction {
             msg.setText(context.getLocalizedString("select_a_meal"));
             msg.setReplyMarkup(BotAction.createKeyboardMarkupWithMenu(1, context.getLocale(),
                     context.getCanteen().getDailyOffer(LocalDate.now()).get()
-                            .getMainMeals().stream()
-                            .filter(a -> DietType.isMealInDiet(a.getNutritions(), context.getDefaultDietType()))
-                            .map(a -> a.getDisplayName(context.getLocale())).toList()));
+                            .getMainMealNames(context.getDefaultDietType(),
+                                    context.getLocale())));
             context.sendMessage(msg);
         }
 
@@ -20,24 +20,31 @@ package telegram;
 import config.Config;
 import database.DatabaseManager;
 import java.text.DecimalFormat;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import localization.ResourceManager;
 import meal.Canteen;
 import meal.DailyOffer;
-import meal.DietType;
 import meal.LeckerSchmecker;
 import meal.MainMeal;
+import meal.Meal;
+import meal.MealSearchIndex;
 import meal.SideMeal;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.polls.SendPoll;
@@ -49,14 +56,19 @@ import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.polls.Poll;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import rating.RatingInfo;
-import util.MultiKeyMap;
+import util.DateUtils;
+import util.Tuple;
 
 public class LeckerSchmeckerBot extends TelegramLongPollingBot {
 
-    private final Map<Long, ChatContext> chatContextById = new HashMap<>();
+    // Keeps the search results within the size limit of a message
+    private static final int MAX_SEARCH_RESULTS = 40;
+
+    // Read by the admin review worker as well
+    private final Map<Long, ChatContext> chatContextById = new ConcurrentHashMap<>();
     private final Map<String, Long> chatIDByPollID = new HashMap<>();
 
-    private final MultiKeyMap<String, String, MealPollInfo> mealPollInfoByMealNameOrPollId = new MultiKeyMap<>();
+    private final AdminReviewQueue adminReviewQueue = new AdminReviewQueue(this);
 
     private final Pattern accessCodePattern = Pattern.compile("\\d{4,5}");
     private final Set<String> oneTimeAccessCodes = new HashSet<>();
@@ -143,9 +155,7 @@ public class LeckerSchmeckerBot extends TelegramLongPollingBot {
 
                 // Find action requested by the user
                 Optional<CallableAction> action = Arrays.stream(CallableAction.values())
-                        .filter(a -> a.getCmds().contains(msg.getText().toLowerCase())
-                                || a.getDisplayName(context.getLocale())
-                                .equalsIgnoreCase(msg.getText()))
+                        .filter(a -> a.matches(msg.getText(), context.getLocale()))
                         .findFirst();
 
                 if (action.isPresent()) {
@@ -276,16 +286,20 @@ public class LeckerSchmeckerBot extends TelegramLongPollingBot {
         }
 
         DailyOffer offer = offerOpt.get();
+        LeckerSchmecker.onMenuServed();
 
         StringBuilder sb = new StringBuilder();
-        for (MainMeal meal : offer.getMainMeals()) {
-            // Skip meal if DietType is filtered
-            if (!DietType.isMealInDiet(meal.getNutritions(), context.getDefaultDietType())) {
-                continue;
-            }
-
-            RatingInfo globalRating = DatabaseManager.getGlobalRating(meal);
-            RatingInfo userRating = DatabaseManager.getUserRating(context, meal);
+        if (canteen.isStale()) {
+            sb.append("_").append(context.getLocalizedString("stale_offer",
+                    DateUtils.formatDuration(canteen.getFreshnessLag(Instant.now()))))
+                    .append("_\n\n");
+        }
+        List<MainMeal> meals = offer.getMainMeals(context.getDefaultDietType());
+        Map<MainMeal, Tuple<RatingInfo, RatingInfo>> ratings = DatabaseManager.getRatings(context,
+                meals);
+        for (MainMeal meal : meals) {
+            RatingInfo globalRating = ratings.get(meal).getA();
+            RatingInfo userRating = ratings.get(meal).getB();
 
             if (context.isCompactLayout()) {
                 sb.append("*").append(meal.getType().getDisplayName(context.getLocale()))
@@ -321,29 +335,78 @@ public class LeckerSchmeckerBot extends TelegramLongPollingBot {
             }
         }
 
-        if (!offer.getSideMeals(SideMeal.Type.MAIN).isEmpty()) {
+        List<String> mainSideMeals = offer.getSideMealNames(SideMeal.Type.MAIN,
+                context.getLocale());
+        if (!mainSideMeals.isEmpty()) {
             sb.append("*").append(context.getLocalizedString("main_side_dish")).append("*")
                     .append("\n");
-            sb.append(String.join(" " + context.getLocalizedString("or") + " ",
-                    offer.getSideMeals(SideMeal.Type.MAIN).stream()
-                            .map(a -> a.getDisplayName(context.getLocale()))
-                            .toList()));
+            sb.append(String.join(" " + context.getLocalizedString("or") + " ", mainSideMeals));
         }
 
-        if (!offer.getSideMeals(SideMeal.Type.SIDE).isEmpty()) {
+        List<String> sideMeals = offer.getSideMealNames(SideMeal.Type.SIDE, context.getLocale());
+        if (!sideMeals.isEmpty()) {
             sb.append("\n\n");
 
             sb.append("*").append(context.getLocalizedString("secondary_dish")).append("*")
                     .append("\n");
-            sb.append(String.join(" " + context.getLocalizedString("or") + " ",
-                    offer.getSideMeals(SideMeal.Type.SIDE).stream()
-                            .map(a -> a.getDisplayName(context.getLocale()))
-                            .toList()));
+            sb.append(String.join(" " + context.getLocalizedString("or") + " ", sideMeals));
         }
 
         return sb.toString();
     }
 
+    /**
+     * Searches the current offers of all canteens for meals matching the query and the diet of
+     * the user. The meals are grouped by date and canteen.
+     */
+    public String getSearchText(String query, ChatContext context) {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, Map<Canteen, List<Meal>>> mealsByDate = new TreeMap<>();
+        int numberOfMeals = 0;
+        for (Canteen canteen : Canteen.TYPES) {
+            for (MealSearchIndex.Hit hit : canteen.getSnapshot().getSearchIndex().search(query)) {
+                if (hit.getDate().isBefore(today) || (hit.getMeal() instanceof MainMeal meal
+                        && !meal.isInDiet(context.getDefaultDietType()))) {
+                    continue;
+                }
+                mealsByDate.computeIfAbsent(hit.getDate(), d -> new LinkedHashMap<>())
+                        .computeIfAbsent(canteen, c -> new ArrayList<>()).add(hit.getMeal());
+                numberOfMeals++;
+            }
+        }
+
+        // The query is repeated in the answer, so it must not break the markdown
+        String shownQuery = query.replaceAll("[*_`\\[]", "");
+        if (mealsByDate.isEmpty()) {
+            return context.getLocalizedString("search_no_results", shownQuery);
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEEE',' dd.MM.yyyy",
+                context.getLocale());
+        StringBuilder sb = new StringBuilder();
+        sb.append("*").append(context.getLocalizedString("search_results", shownQuery)).append("*");
+        int shown = 0;
+        results:
+        for (Map.Entry<LocalDate, Map<Canteen, List<Meal>>> entry : mealsByDate.entrySet()) {
+            sb.append("\n\n*").append(entry.getKey().format(formatter)).append("*");
+            for (Map.Entry<Canteen, List<Meal>> canteenEntry : entry.getValue().entrySet()) {
+                sb.append("\n_").append(canteenEntry.getKey().getDisplayName()).append("_");
+                for (Meal meal : canteenEntry.getValue()) {
+                    sb.append("\n• ").append(meal.getDisplayName(context.getLocale()));
+                    // Stop at the meal itself, a single day may hold more results than the limit
+                    if (++shown >= MAX_SEARCH_RESULTS) {
+                        break results;
+                    }
+                }
+            }
+        }
+        if (shown < numberOfMeals) {
+            sb.append("\n\n").append(context.getLocalizedString("search_more_results",
+                    numberOfMeals - shown));
+        }
+        return sb.toString();
+    }
+
     private ChatContext getContext(long chatId) {
         ChatContext context;
         if (!chatContextById.containsKey(chatId)) {
@@ -355,6 +418,15 @@ public class LeckerSchmeckerBot extends TelegramLongPollingBot {
         return context;
     }
 
+    /**
+     * Returns the cached context of the chat, or loads it without caching it if the chat has not
+     * been active since the start.
+     */
+    public ChatContext getContextIfActive(long chatId) {
+        ChatContext context = chatContextById.get(chatId);
+        return context != null ? context : DatabaseManager.loadUser(this, chatId);
+    }
+
     public Long getChatID(Update update) {
         if (update.hasMessage()) {
             return update.getMessage().getChatId();
@@ -371,12 +443,18 @@ public class LeckerSchmeckerBot extends TelegramLongPollingBot {
         return null;
     }
 
+    /**
+     * Queues a question to the admins, whether the given meal is one of the similar meals. The
+     * question is sent asynchronously.
+     */
     public void askAdmins(MainMeal meal, Set<Integer> similarMeals) {
-        if (mealPollInfoByMealNameOrPollId.containsKey1(meal.getName())) {
-            mealPollInfoByMealNameOrPollId.get1(meal.getName()).addMeal(meal);
-            return;
-        }
+        adminReviewQueue.enqueue(meal, similarMeals);
+    }
 
+    /**
+     * Sends the question about the given meal to the admins and returns the ID of the message.
+     */
+    String sendMealPoll(MainMeal meal, List<Integer> similarMeals) {
         String pollID;
 
         SendMessage message = new SendMessage();
@@ -411,20 +489,19 @@ public class LeckerSchmeckerBot extends TelegramLongPollingBot {
         } catch (TelegramApiException e) {
             e.printStackTrace();
         }
-
-        MealPollInfo info = new MealPollInfo();
-        info.addMeal(meal);
-
-        mealPollInfoByMealNameOrPollId.put(meal.getName(), pollID, info);
+        return pollID;
     }
 
     public MealPollInfo getMealPollInfo(String pollID) {
-        return this.mealPollInfoByMealNameOrPollId.get2(pollID);
+        return adminReviewQueue.getMealPollInfo(pollID);
     }
 
     public void removeMealPollInfo(String pollID) {
-        String mealName = this.mealPollInfoByMealNameOrPollId.get2(pollID).getMealName();
-        this.mealPollInfoByMealNameOrPollId.remove(mealName, pollID);
+        adminReviewQueue.removeMealPollInfo(pollID);
+    }
+
+    public AdminReviewQueue getAdminReviewQueue() {
+        return adminReviewQueue;
     }
 
     public boolean addAccessCode(String code) {
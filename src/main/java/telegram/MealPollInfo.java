@@ -25,11 +25,11 @@ public class MealPollInfo {
 
     private final Set<MainMeal> mealsWaitingForID = new HashSet<>();
 
-    public void addMeal(MainMeal meal) {
+    public synchronized void addMeal(MainMeal meal) {
         mealsWaitingForID.add(meal);
     }
 
-    public int updateMeals(String chosenMealID) {
+    public synchronized int updateMeals(String chosenMealID) {
         int id = Integer.parseInt(chosenMealID.trim());
         if (id == 0) {
             id = DatabaseManager.addMeal(mealsWaitingForID.iterator().next());
@@ -42,7 +42,7 @@ public class MealPollInfo {
         return mealsWaitingForID.size();
     }
 
-    public String getMealName() {
+    public synchronized String getMealName() {
         return mealsWaitingForID.iterator().next().getName();
     }
 
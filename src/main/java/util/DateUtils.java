@@ -17,6 +17,7 @@
 package util;
 
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
@@ -55,6 +56,20 @@ public class DateUtils {
         return result;
     }
 
+    /**
+     * Formats a duration for users, e.g. "45 min", "3 h 20 min" or "2 d 4 h".
+     */
+    public static String formatDuration(Duration duration) {
+        long minutes = duration.toMinutes();
+        if (minutes < 60) {
+            return minutes + " min";
+        }
+        if (minutes < 60 * 24) {
+            return minutes / 60 + " h " + minutes % 60 + " min";
+        }
+        return duration.toDays() + " d " + duration.toHoursPart() + " h";
+    }
+
     public static boolean isWeekend(LocalDate date) {
         return date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
     }
@@ -0,0 +1,77 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import meal.MealResolver.Resolution;
+import org.junit.jupiter.api.Test;
+
+class MealResolverTest {
+
+    private static MainMeal meal(String name, String displayNameDE) {
+        return new MainMeal.Builder()
+                .setName(name)
+                .setDisplayNameDE(displayNameDE)
+                .setDisplayNameEN(displayNameDE)
+                .setType(MainMeal.Type.TELLERGERICHT)
+                .createMainMeal();
+    }
+
+    @Test
+    void firstMealWithTrigramHitsDoesNotClaimShortAlias() {
+        MainMeal a = meal("schnitzel_pommes", "Schnitzel | Pommes");
+        MainMeal b = meal("schnitzel_reis", "Schnitzel | Reis");
+        assertEquals(a.getShortAlias(), b.getShortAlias());
+
+        // Only the first meal has trigram hits
+        Resolution resolution = MealResolver.classify(List.of(a, b), Map.of(),
+                name -> name.equals(a.getName()) ? List.of(7) : List.of());
+
+        assertEquals(Set.of(7), resolution.similarIDsByMeal.get(a));
+        assertTrue(resolution.newMealsByName.containsKey(b.getName()));
+        assertEquals(b.getName(), resolution.nameByShortAlias.get(b.getShortAlias()));
+    }
+
+    @Test
+    void laterMealsWithSameShortAliasAreSimilarToTheNewMeal() {
+        MainMeal a = meal("schnitzel_pommes", "Schnitzel | Pommes");
+        MainMeal b = meal("schnitzel_reis", "Schnitzel | Reis");
+
+        Resolution resolution = MealResolver.classify(List.of(a, b), Map.of(),
+                name -> List.of());
+
+        assertEquals(Set.of(a.getName()), resolution.newMealsByName.keySet());
+        assertEquals(Set.of(), resolution.similarIDsByMeal.get(b));
+        assertEquals(a.getName(), resolution.nameByShortAlias.get(b.getShortAlias()));
+    }
+
+    @Test
+    void knownShortAliasMakesMealSimilar() {
+        MainMeal a = meal("schnitzel_pommes", "Schnitzel | Pommes");
+
+        Resolution resolution = MealResolver.classify(List.of(a),
+                Map.of(a.getShortAlias(), Set.of(3)), name -> List.of(5));
+
+        assertEquals(List.of(3, 5), List.copyOf(resolution.similarIDsByMeal.get(a)));
+        assertTrue(resolution.newMealsByName.isEmpty());
+    }
+}
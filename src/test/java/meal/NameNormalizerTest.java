@@ -0,0 +1,114 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+package meal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the single pass normalizer produces exactly the names of the former chain of
+ * replacements, which are stored in the database.
+ */
+class NameNormalizerTest {
+
+    // Characters and words which take different paths through the normalizer
+    private static final String[] FRAGMENTS = {" ", "  ", " mit ", " und ", " oder ", "mit", "und",
+            "oder", "ß", "ẞ", "Ä", "ö", "|", "-", ":", ",", ".", "&", "/", "\\", "\t", "I", "İ", "Σ",
+            "Reis", "Soße", "X"};
+
+    private static void assertSameAsLegacy(String name) {
+        assertEquals(NameNormalizer.legacyNormalize(name), NameNormalizer.normalize(name),
+                () -> "Normalized '" + name + "'");
+    }
+
+    @Test
+    void umlautsAndSharpS() {
+        assertEquals("hähnchen_reis_salat", NameNormalizer.normalize("Hähnchen mit Reis, Salat"));
+        assertEquals("strassenküche_grüne_soss", NameNormalizer.normalize("Straßenküche: Grüne Soß"));
+        assertSameAsLegacy("STRAßENKÜCHE ÄÖÜ äöü ß");
+        assertSameAsLegacy("Ïl Éclair ÀÖØÞ");
+    }
+
+    @Test
+    void repeatedSeparators() {
+        assertEquals("gemüse_lasagne_tomatensosse",
+                NameNormalizer.normalize("Gemüse--Lasagne || Tomatensoße"));
+        assertSameAsLegacy("Bratwurst // Brötchen && Senf \\ Ketchup");
+        assertSameAsLegacy("  Currywurst  mit  Pommes frites  ");
+        assertSameAsLegacy("Eintopf mit mit Brot");
+        assertSameAsLegacy("Pasta mit und Käse");
+        assertSameAsLegacy("Salat oder mit Dressing");
+    }
+
+    @Test
+    void leadingAndTrailingPunctuation() {
+        assertEquals("suppe", NameNormalizer.normalize("...Suppe."));
+        assertSameAsLegacy("| Suppe mit Einlage |");
+        assertSameAsLegacy("- Reis mit ");
+        assertSameAsLegacy("mit Reis");
+        assertSameAsLegacy("\tSuppe mit Einlage\n");
+    }
+
+    @Test
+    void emptyAndOnlyPunctuation() {
+        assertEquals("", NameNormalizer.normalize(""));
+        assertEquals("", NameNormalizer.normalize("|-:,./&\\"));
+        assertSameAsLegacy("");
+        assertSameAsLegacy(" | - : , . / & \\ ");
+        assertSameAsLegacy(" mit ");
+    }
+
+    @Test
+    void nonLatinCharacters() {
+        assertSameAsLegacy("Çiğ köfte mit İçli");
+        assertSameAsLegacy("Schnitzel “Wiener Art” mit Pommes");
+    }
+
+    @Test
+    void recordedMealNames() throws IOException, URISyntaxException {
+        Path dir = Path.of(getClass().getResource("/recordings").toURI());
+        List<String> names = new ArrayList<>();
+        for (String page : List.of("academica-w.html", "academica-w-en.html")) {
+            for (Element meal : RecordedPages.load(dir.toString(), page).parse()
+                    .getElementsByClass("expand-nutr")) {
+                names.add(meal.ownText());
+            }
+        }
+
+        assertEquals(10, names.size());
+        names.forEach(NameNormalizerTest::assertSameAsLegacy);
+    }
+
+    @Test
+    void randomNames() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(12); j >= 0; j--) {
+                sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertSameAsLegacy(sb.toString());
+        }
+    }
+}
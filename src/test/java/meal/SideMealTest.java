@@ -0,0 +1,87 @@
+/*
+ * RWTH-LeckerSchmecker
+ * Copyright (c) 2023 Th3JD, ekansemit, 3dde
+ *
+ * This file is part of RWTH-LeckerSchmecker.
+ *
+ * RWTH-LeckerSchmecker is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation,
+ * either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with RWTH-LeckerSchmecker.
+ * If not, see <https://www.gnu.org/licenses/>.
+ */
+package meal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.select.Elements;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the DOM based side meal parser against the former parser, which split the serialized
+ * HTML. The former parser kept HTML entities like "&amp;amp;" in the names, so its names are
+ * unescaped for the comparison.
+ */
+class SideMealTest {
+
+    private static Elements extras(String page) throws IOException, URISyntaxException {
+        Path dir = Path.of(SideMealTest.class.getResource("/recordings").toURI());
+        return RecordedPages.load(dir.toString(), page).parse().getElementsByClass("extras")
+                .select(".menue-wrapper");
+    }
+
+    private static List<String> legacyDisplayNames(Element extra, String separator) {
+        String html = extra.getElementsByClass("menue-item extra menue-desc").get(0).html();
+        return Arrays.stream(html.replace("<span class=\"menue-nutr\">+</span>", "")
+                        .replace("<br>", "")
+                        .replaceAll("<sup>.*?</sup>", "")
+                        .replace("|", "")
+                        .split("<span class=\"seperator\">" + separator + "</span>"))
+                .map(String::trim)
+                .map(n -> Parser.unescapeEntities(n, false))
+                .toList();
+    }
+
+    private static void assertSameAsLegacy(String page, String separator)
+            throws IOException, URISyntaxException {
+        Elements extras = extras(page);
+        assertFalse(extras.isEmpty());
+        for (Element extra : extras) {
+            Element desc = extra.getElementsByClass("menue-item extra menue-desc").get(0);
+            assertEquals(legacyDisplayNames(extra, separator), SideMeal.parseDisplayNames(desc),
+                    desc::outerHtml);
+        }
+    }
+
+    @Test
+    void germanPageSameAsLegacy() throws IOException, URISyntaxException {
+        assertSameAsLegacy("academica-w.html", "oder");
+    }
+
+    @Test
+    void englishPageSameAsLegacy() throws IOException, URISyntaxException {
+        assertSameAsLegacy("academica-w-en.html", "or");
+    }
+
+    @Test
+    void displayNames() throws IOException, URISyntaxException {
+        Elements extras = extras("academica-w.html");
+        assertEquals(List.of("Salzkartoffeln", "Reis & Erbsen", "Pommes  Frites"),
+                SideMeal.parseDisplayNames(extras.get(0).selectFirst(".menue-desc")));
+        assertEquals(List.of("Salat"),
+                SideMeal.parseDisplayNames(extras.get(1).selectFirst(".menue-desc")));
+        assertEquals(List.of("Gemüse der Saison", "Rohkost", "Dessert"),
+                SideMeal.parseDisplayNames(extras.get(3).selectFirst(".menue-desc")));
+    }
+}